@@ -0,0 +1,62 @@
+package sh.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sh.querydsl.QuerydslApplication;
+import sh.querydsl.cache.DataVersion;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//벤치마크용 스프링 컨텍스트. 웹 서버 없이 JPA 스택만 임베디드 in-memory H2에 띄우고 member/team 데이터를 채운다.
+final class BenchmarkContext {
+
+    static final int TEAM_COUNT = 100;
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    //command line 인자로 넘겨야 application.yml(tcp H2, local 프로파일의 InitMember)보다 우선한다.
+    //properties는 벤치마크마다 덮어쓸 설정 (예: --spring.jpa.properties.hibernate.jdbc.batch_size=0)
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        List<String> args = new ArrayList<>(List.of("--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.SQL=warn"));
+        args.addAll(List.of(properties));
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    //member{i}, 나이는 0~99 반복, 팀은 team0 ~ team99에 고르게 나눈다.
+    static void seed(ConfigurableApplicationContext context, int members) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+        List<Object[]> teams = new ArrayList<>(TEAM_COUNT);
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Object[]{(long) i + 1, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < members; i++) {
+            batch.add(new Object[]{(long) TEAM_COUNT + i + 1, "member" + i, i % 100, (long) (i % TEAM_COUNT) + 1});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+        }
+        //JPA를 거치지 않고 넣었으므로 GenerateMember처럼 캐시(count, 팀 사전)를 직접 무효화한다.
+        DataVersion.bumpTeam();
+    }
+}
@@ -0,0 +1,97 @@
+package sh.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.MemberCreateDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+import sh.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//회원 대량 저장 처리량(rows/s). 한 번의 호출이 ROWS건을 저장하고, 결과는 row 하나당 ops/s로 나온다.
+//saveOneByOne: 한 건마다 트랜잭션 하나 (POST /v1/members/bulk 이전에 save를 반복 호출하던 방식)
+//saveAll: MemberJpaRepository.saveAll (chunk flush + JDBC batch + pooled-lo 시퀀스)
+//jdbcBatchSize=0은 JDBC batch를 끈 경우. saveAll의 차이 중 batch 몫을 따로 본다.
+//./gradlew jmh -PjmhIncludes=BulkInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"0", "100"})
+    int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private EntityManager em;
+    private TransactionTemplate transaction;
+
+    private final List<MemberCreateDto> rows = new ArrayList<>(ROWS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bulkInsert" + jdbcBatchSize,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+        BenchmarkContext.seed(context, 0);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        em = context.getBean(EntityManager.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberCreateDto("bulk" + i, i % 100, (long) (i % BenchmarkContext.TEAM_COUNT) + 1));
+        }
+    }
+
+    //테이블이 커지면서 insert 비용이 달라지지 않도록 iteration마다 비운다.
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        transaction.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveOneByOne() {
+        for (MemberCreateDto row : rows) {
+            transaction.executeWithoutResult(status -> {
+                Member member = new Member(row.getUsername(), row.getAge());
+                member.setTeam(em.getReference(Team.class, row.getTeamId()));
+                memberJpaRepository.save(member);
+            });
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int saveAll() {
+        return memberJpaRepository.saveAll(rows);
+    }
+}
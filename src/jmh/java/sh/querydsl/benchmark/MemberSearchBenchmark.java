@@ -0,0 +1,122 @@
+package sh.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import sh.querydsl.cache.DataVersion;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.repository.MemberJpaRepository;
+import sh.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//같은 검색의 세 가지 구현(searchByBuilder, where 파라미터 search, QuerydslRepositorySupport search)과
+//세 가지 페이징(searchPageSimple, searchPageComplex, searchPageUpgrade)을 데이터 크기 x 조건 조합별로 측정한다.
+//./gradlew jmh  -> build/reports/jmh/results.json (gc 프로파일러로 할당량 gc.alloc.rate.norm 포함)
+//기본 @Param은 10만 건 x 대표 조건 5개(없음, username, teamName, teamName+ageGoe, 전부)만 돈다. 전체 조합은 build.gradle의 -PjmhParams로 덮어쓴다.
+//./gradlew jmh -PjmhIncludes=MemberSearchBenchmark -PjmhParams='members=1000,100000,1000000;predicateMask=0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15'
+//1천만 건은 ./gradlew jmhJar 후 java -jar build/libs/querydsl-0.0.1-SNAPSHOT-jmh.jar -p members=10000000 -rf json 으로 실행한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class MemberSearchBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    //bit0: username, bit1: teamName, bit2: ageGoe, bit3: ageLoe
+    @Param({"0", "1", "2", "6", "15"})
+    int predicateMask;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+
+    private MemberSearchCondition condition;
+    private final Pageable pageable = PageRequest.of(2, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("search" + members);
+        BenchmarkContext.seed(context, members);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        if ((predicateMask & 1) != 0) {
+            condition.setUsername("member" + members / 2);
+        }
+        if ((predicateMask & 2) != 0) {
+            condition.setTeamName("team1");
+        }
+        if ((predicateMask & 4) != 0) {
+            condition.setAgeGoe(20);
+        }
+        if ((predicateMask & 8) != 0) {
+            condition.setAgeLoe(60);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearch() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> supportSearch() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> pageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    //매번 DataVersion을 올려서 MemberCountCache를 비운다. pageComplex처럼 호출마다 count 쿼리를 실행한다.
+    @Benchmark
+    public Page<MemberTeamDto> pageUpgrade() {
+        DataVersion.bump();
+        return memberRepository.searchPageUpgrade(condition, pageable);
+    }
+
+    //데이터가 바뀌지 않는 동안: 첫 호출 뒤로는 count를 MemberCountCache에서 꺼낸다. (count 캐시 hit)
+    @Benchmark
+    public Page<MemberTeamDto> pageUpgradeCountCached() {
+        return memberRepository.searchPageUpgrade(condition, pageable);
+    }
+}
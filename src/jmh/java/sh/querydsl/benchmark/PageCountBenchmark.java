@@ -0,0 +1,74 @@
+package sh.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import sh.querydsl.cache.DataVersion;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+///v2/members?mode=PAGE(searchPageUpgrade)와 mode=CONCURRENT(searchPageConcurrent)의 응답 시간 비교.
+//매번 count 캐시를 무효화해서 count 쿼리가 실제로 나가는 경우를 잰다. (캐시 hit이면 둘의 차이가 없다)
+//./gradlew jmh -PjmhIncludes=PageCountBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class PageCountBenchmark {
+
+    @Param({"100000", "1000000"})
+    int members;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final Pageable pageable = PageRequest.of(2, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("pageCount" + members);
+        BenchmarkContext.seed(context, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition.setAgeGoe(20);
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateCountCache() {
+        DataVersion.bump();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> page() {
+        return memberRepository.searchPageUpgrade(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> concurrent() {
+        return memberRepository.searchPageConcurrent(condition, pageable);
+    }
+}
@@ -0,0 +1,86 @@
+package sh.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.entity.Member;
+import sh.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//같은 Member 엔티티 전체 조회를 세 가지 방식으로 비교한다.
+//managed: 쓰기 트랜잭션 안에서 조회 (이전 방식, 스냅샷 + flush 검사)
+//readOnly: MemberJpaRepository의 readOnly 트랜잭션 + READ_ONLY 힌트
+//stateless: StatelessSession으로 한 건씩 (영속성 컨텍스트 없음)
+//힙 차이는 gc 프로파일러의 gc.alloc.rate.norm(연산당 할당 바이트)으로 본다.
+//./gradlew jmh -PjmhIncludes=ReadOnlyBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class ReadOnlyBenchmark {
+
+    @Param({"10000", "100000"})
+    int members;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private EntityManager em;
+    private TransactionTemplate writeTransaction;
+
+    private final MemberSearchCondition all = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("readOnly" + members);
+        BenchmarkContext.seed(context, members);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        em = context.getBean(EntityManager.class);
+        writeTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //readOnly 트랜잭션이 바깥 쓰기 트랜잭션에 참여하므로 FlushMode.AUTO, 커밋 때 dirty checking까지 한다.
+    //READ_ONLY 힌트 효과를 빼기 위해 힌트 없는 JPQL을 직접 실행한다.
+    @Benchmark
+    public int managed() {
+        return writeTransaction.execute(status -> {
+            List<Member> result = em.createQuery("select m from Member m", Member.class)
+                    .getResultList();
+            return result.size();
+        });
+    }
+
+    @Benchmark
+    public int readOnly() {
+        return memberJpaRepository.findAll().size();
+    }
+
+    @Benchmark
+    public void stateless(Blackhole blackhole) {
+        memberJpaRepository.readAll(all, blackhole::consume);
+    }
+}
@@ -0,0 +1,138 @@
+package sh.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import sh.querydsl.config.MemberPageJsonConverter;
+import sh.querydsl.config.MemberRowsCodec;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PageEnvelope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+///v2/members 응답 한 페이지를 포맷별로 쓰고(write*) 읽는(read*) 시간 비교. DB 없이 직렬화만 잰다.
+//json: 지금 응답 (Jackson이 PageImpl 전체를 직렬화), compact: envelope=COMPACT 스트리밍 writer
+//smile/cbor: Accept: application/x-jackson-smile, application/cbor, rows: Accept: application/x-member-rows
+//포맷별 응답 크기(byte)는 Setup에서 출력한다.
+//./gradlew jmh -PjmhIncludes=ResponseFormatBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ResponseFormatBenchmark {
+
+    @Param({"20", "500"})
+    int rows;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    private PageImpl<MemberTeamDto> page;
+    private MemberPage memberPage;
+
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+    private byte[] cborBytes;
+    private byte[] rowsBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<MemberTeamDto> content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10 + 1;
+            content.add(new MemberTeamDto(1_000_000L + i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, rows), 10_000_000L);
+        memberPage = MemberPage.of(page, PageEnvelope.COMPACT);
+
+        jsonBytes = json.writeValueAsBytes(page);
+        smileBytes = smile.writeValueAsBytes(page);
+        cborBytes = cbor.writeValueAsBytes(page);
+        rowsBytes = writeRows().toByteArray();
+
+        System.out.printf("%nrows=%d bytes json=%d compact=%d columnar=%d smile=%d cbor=%d x-member-rows=%d%n",
+                rows, jsonBytes.length, writeCompact(),
+                write(json, MemberPage.of(page, PageEnvelope.COLUMNAR)).size(),
+                smileBytes.length, cborBytes.length, rowsBytes.length);
+    }
+
+    @Benchmark
+    public int writeJson() throws IOException {
+        return json.writeValueAsBytes(page).length;
+    }
+
+    @Benchmark
+    public int writeCompact() throws IOException {
+        return write(json, memberPage).size();
+    }
+
+    @Benchmark
+    public int writeSmile() throws IOException {
+        return smile.writeValueAsBytes(page).length;
+    }
+
+    @Benchmark
+    public int writeCbor() throws IOException {
+        return cbor.writeValueAsBytes(page).length;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        MemberRowsCodec.write(memberPage, out);
+        return out;
+    }
+
+    @Benchmark
+    public JsonNode readJson() throws IOException {
+        return json.readTree(jsonBytes);
+    }
+
+    @Benchmark
+    public JsonNode readSmile() throws IOException {
+        return smile.readTree(smileBytes);
+    }
+
+    @Benchmark
+    public JsonNode readCbor() throws IOException {
+        return cbor.readTree(cborBytes);
+    }
+
+    @Benchmark
+    public MemberPage readRows() throws IOException {
+        return MemberRowsCodec.read(new ByteArrayInputStream(rowsBytes));
+    }
+
+    private ByteArrayOutputStream write(ObjectMapper mapper, MemberPage memberPage) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            MemberPageJsonConverter.write(memberPage, generator);
+        }
+        return out;
+    }
+}
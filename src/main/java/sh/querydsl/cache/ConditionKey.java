@@ -0,0 +1,25 @@
+package sh.querydsl.cache;
+
+import lombok.Value;
+import sh.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//MemberSearchCondition을 캐시 키로 쓰기 위한 정규화된 값.
+//where절에서 무시되는 빈 문자열은 null로 맞춰서 같은 쿼리가 같은 키가 되도록 한다.
+@Value
+public class ConditionKey {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+
+    public static ConditionKey of(MemberSearchCondition condition) {
+        return new ConditionKey(
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+}
@@ -0,0 +1,76 @@
+package sh.querydsl.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//member/team 데이터가 바뀔 때마다 올라가는 전역 쓰기 버전.
+//캐시는 값을 만들 때의 버전을 같이 저장해두고, 버전이 달라졌으면 그 값을 버린다.
+//엔티티(Member.changeTeam, Team)에서도 불러야 해서 빈이 아니라 static으로 둔다.
+public final class DataVersion {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+    //팀만 보는 캐시(TeamDictionary)용. 회원이 바뀔 때는 올라가지 않는다.
+    private static final AtomicLong TEAM_VERSION = new AtomicLong();
+
+    private DataVersion() {
+    }
+
+    public static long current() {
+        return VERSION.get();
+    }
+
+    public static long currentTeam() {
+        return TEAM_VERSION.get();
+    }
+
+    public static void bump() {
+        bump(false);
+    }
+
+    //team이 바뀌면 팀별 조건의 결과도 바뀌므로 전역 버전도 같이 올린다.
+    public static void bumpTeam() {
+        bump(true);
+    }
+
+    //현재 트랜잭션에서 아직 커밋되지 않은 team 변경이 있는지. 있으면 다른 커넥션으로 만든 팀 캐시에는 그 변경이 없다.
+    public static boolean teamChangedInTransaction() {
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(DataVersion.class);
+        return changes != null && changes.team;
+    }
+
+    private static void bump(boolean team) {
+        VERSION.incrementAndGet();
+        if (team) {
+            TEAM_VERSION.incrementAndGet();
+        }
+
+        //쓰기 트랜잭션 도중에 만들어진 캐시 값에는 커밋 전(혹은 롤백될) 데이터가 섞여 있으므로
+        //트랜잭션이 끝날 때 한 번 더 올려서 버린다.
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(DataVersion.class);
+        if (changes == null) {
+            Changes registered = new Changes();
+            TransactionSynchronizationManager.bindResource(DataVersion.class, registered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DataVersion.class);
+                    VERSION.incrementAndGet();
+                    if (registered.team) {
+                        TEAM_VERSION.incrementAndGet();
+                    }
+                }
+            });
+            changes = registered;
+        }
+        changes.team |= team;
+    }
+
+    private static final class Changes {
+        private boolean team;
+    }
+}
@@ -0,0 +1,31 @@
+package sh.querydsl.cache;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Hibernate가 실행하는 모든 SQL을 보고 member/team에 대한 insert/update/delete면 DataVersion을 올린다.
+//queryFactory.update(...).execute() 같은 bulk 연산은 엔티티를 거치지 않으므로 여기서 잡는다.
+//application.yml의 hibernate.session_factory.statement_inspector로 등록한다.
+public class DataVersionStatementInspector implements StatementInspector {
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(insert\\s+into|update|delete\\s+from)\\s+(member|team)\\b", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String inspect(String sql) {
+        //use_sql_comments가 켜져 있으면 앞에 /* JPQL */ 주석이 붙어서 온다.
+        String statement = LEADING_COMMENT.matcher(sql).replaceFirst("");
+        Matcher write = WRITE.matcher(statement);
+        if (write.find()) {
+            if (write.group(2).equalsIgnoreCase("team")) {
+                DataVersion.bumpTeam();
+            } else {
+                DataVersion.bump();
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,64 @@
+package sh.querydsl.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.MemberSearchCondition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+//페이지를 넘길 때마다 같은 조건의 count 쿼리가 다시 나가지 않도록 조건별 total을 DataVersion과 함께 저장한다.
+//hit/miss/stale 건수는 /actuator/metrics/member.count.cache.requests 에서 result 태그로 볼 수 있다.
+@Component
+public class MemberCountCache {
+
+    private final Map<ConditionKey, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+
+    public MemberCountCache(MeterRegistry registry,
+                            @Value("${member.count-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = registry.counter("member.count.cache.requests", "result", "hit");
+        this.misses = registry.counter("member.count.cache.requests", "result", "miss");
+        this.stale = registry.counter("member.count.cache.requests", "result", "stale");
+        registry.gaugeMapSize("member.count.cache.size", Tags.empty(), entries);
+    }
+
+    public long count(MemberSearchCondition condition, LongSupplier countQuery) {
+        ConditionKey key = ConditionKey.of(condition);
+
+        //count 쿼리를 실행하기 전의 버전으로 저장해야, 실행 도중 들어온 쓰기가 있으면 다음 조회에서 버려진다.
+        long version = DataVersion.current();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.count;
+        }
+        (entry == null ? misses : stale).increment();
+
+        long count = countQuery.getAsLong();
+        if (entries.size() >= maxEntries) {
+            entries.clear(); //조건 조합이 폭발하는 경우를 막기 위한 단순한 상한
+        }
+        entries.put(key, new Entry(version, count));
+        return count;
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final long count;
+
+        private Entry(long version, long count) {
+            this.version = version;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package sh.querydsl.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+//회원 검색 응답을 직렬화된 byte[] 그대로 DataVersion과 함께 보관한다. (MemberResponseCacheFilter)
+//전체 크기가 member.response-cache.max-bytes를 넘으면 가장 오래 안 쓰인 응답부터 버린다(LRU).
+//hit/miss/stale/not_modified 건수는 /actuator/metrics/member.response.cache.requests 에서 result 태그로 본다.
+@Component
+public class MemberResponseCache {
+
+    private static final String BOOT = Long.toHexString(System.currentTimeMillis());
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    //접근 순서 LinkedHashMap. 조회도 순서를 바꾸므로 모든 접근을 this로 동기화한다.
+    private final LinkedHashMap<ResponseCacheKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+    private final Counter notModified;
+
+    public MemberResponseCache(MeterRegistry registry,
+                               @Value("${member.response-cache.max-bytes:67108864}") long maxBytes,
+                               @Value("${member.response-cache.max-entry-bytes:1048576}") int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.hits = registry.counter("member.response.cache.requests", "result", "hit");
+        this.misses = registry.counter("member.response.cache.requests", "result", "miss");
+        this.stale = registry.counter("member.response.cache.requests", "result", "stale");
+        this.notModified = registry.counter("member.response.cache.requests", "result", "not_modified");
+        Gauge.builder("member.response.cache.bytes", this, MemberResponseCache::totalBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    //version에 만든 응답이 있으면 그것을, 없거나 오래됐으면 null
+    public Entry get(ResponseCacheKey key, long version) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.version != version) {
+                remove(key);
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.version != version) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    //version은 응답을 만들기 전에 읽은 값이어야, 만드는 도중 들어온 쓰기가 있으면 다음 조회에서 버려진다.
+    public void put(ResponseCacheKey key, long version, String contentType, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+        synchronized (this) {
+            remove(key);
+            entries.put(key, new Entry(version, contentType, body));
+            totalBytes += body.length;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().body.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    public void notModified() {
+        notModified.increment();
+    }
+
+    private void remove(ResponseCacheKey key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.body.length;
+        }
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public static final class Entry {
+        private final long version;
+        private final String contentType;
+        private final byte[] body;
+
+        private Entry(long version, String contentType, byte[] body) {
+            this.version = version;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    //DataVersion은 재시작하면 0부터 다시 세므로 기동 시각을 붙이고,
+    //key마다 다르게 만들어서 다른 조건의 응답 ETag가 우연히 맞는 일이 없게 한다.
+    public static String etag(ResponseCacheKey key, long version) {
+        return "\"" + BOOT + "-" + Long.toHexString(version) + "-" + Integer.toHexString(key.hashCode()) + "\"";
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(etag) || trimmed.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
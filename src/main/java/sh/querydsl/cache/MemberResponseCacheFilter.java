@@ -0,0 +1,171 @@
+package sh.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import sh.querydsl.config.MemberRowsCodec;
+import sh.querydsl.dto.MemberSearchCondition;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+//같은 조건으로 몇 초마다 /v1~v3/members를 다시 부르는 클라이언트를 위해
+//- If-None-Match가 지금 DataVersion으로 만든 ETag와 같으면 DB도 컨트롤러도 거치지 않고 304를 돌려준다.
+//- 아니면 MemberResponseCache에 같은 버전의 직렬화된 응답이 있으면 그 byte[]를 그대로 쓴다.
+//- 둘 다 아니면 컨트롤러를 실행하고 200 응답 body를 저장한다.
+//source=SNAPSHOT은 DataVersion보다 늦게 따라오므로(refresh-millis) 캐시하지 않는다.
+@Component
+@RequiredArgsConstructor
+public class MemberResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String UNPAGED = "/v1/members";
+    private static final Set<String> PAGED = Set.of("/v2/members", "/v3/members");
+
+    //PageableHandlerMethodArgumentResolver 기본값과 같게 맞춘다.
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    //컨버터 등록 순서(WebConfig)와 같다. Accept가 */*면 맨 앞의 JSON
+    private static final List<MediaType> PRODUCIBLE = List.of(
+            MediaType.APPLICATION_JSON,
+            new MediaType("application", "x-jackson-smile"),
+            MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType(MemberRowsCodec.MEDIA_TYPE));
+
+    private final MemberResponseCache cache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !"GET".equals(request.getMethod())
+                || !(UNPAGED.equals(path) || PAGED.contains(path))
+                || "SNAPSHOT".equalsIgnoreCase(request.getParameter("source"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ResponseCacheKey key = key(request);
+        if (key == null) {
+            filterChain.doFilter(request, response); //잘못된 파라미터는 컨트롤러가 400으로 처리한다.
+            return;
+        }
+
+        long version = DataVersion.current();
+        String etag = MemberResponseCache.etag(key, version);
+        //브라우저가 매번 다시 확인(조건부 요청)하도록 하고, Accept마다 응답이 다르다고 알린다.
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        if (MemberResponseCache.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            cache.notModified();
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, etag);
+            return;
+        }
+
+        MemberResponseCache.Entry entry = cache.get(key, version);
+        if (entry != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setContentType(entry.getContentType());
+            response.setContentLength(entry.getBody().length);
+            response.getOutputStream().write(entry.getBody());
+            return;
+        }
+
+        //body를 모아뒀다가 저장하고 내보낸다. 그 전까지는 응답이 commit되지 않으므로 ETag를 뒤에 붙일 수 있다.
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value()) {
+            cache.put(key, version, wrapper.getContentType(), wrapper.getContentAsByteArray());
+            wrapper.setHeader(HttpHeaders.ETAG, etag);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static ResponseCacheKey key(HttpServletRequest request) {
+        String accept = accept(request.getHeader(HttpHeaders.ACCEPT));
+        if (accept == null) {
+            return null; //만들 수 없는 포맷이면 컨트롤러가 406으로 처리한다.
+        }
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(request.getParameter("username"));
+        condition.setTeamName(request.getParameter("teamName"));
+        try {
+            condition.setAgeGoe(integer(request.getParameter("ageGoe")));
+            condition.setAgeLoe(integer(request.getParameter("ageLoe")));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String path = path(request);
+        if (UNPAGED.equals(path)) {
+            return new ResponseCacheKey(path, ConditionKey.of(condition), 0, 0, null, null, null, accept);
+        }
+        int page = Math.max(0, parseOrDefault(request.getParameter("page"), 0));
+        int size = parseOrDefault(request.getParameter("size"), DEFAULT_PAGE_SIZE);
+        size = size < 1 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        String[] sort = request.getParameterValues("sort");
+        String mode = request.getParameter("mode");
+        String envelope = request.getParameter("envelope");
+        return new ResponseCacheKey(path, ConditionKey.of(condition), page, size,
+                sort != null ? Arrays.toString(sort) : null,
+                mode != null && !mode.isEmpty() ? mode.toUpperCase(Locale.ROOT) : "PAGE",
+                envelope != null ? envelope.toUpperCase(Locale.ROOT) : null,
+                accept);
+    }
+
+    //Accept를 실제로 나갈 포맷 하나로 정규화해서 같은 포맷이면 헤더 모양이 달라도 같은 키가 되게 한다.
+    private static String accept(String header) {
+        if (header == null || header.isEmpty()) {
+            return MediaType.APPLICATION_JSON_VALUE;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(header);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue; //q=0은 받지 않겠다는 뜻
+            }
+            for (MediaType producible : PRODUCIBLE) {
+                if (mediaType.isCompatibleWith(producible)) {
+                    return producible.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Integer integer(String value) {
+        return value == null || value.isEmpty() ? null : Integer.valueOf(value.trim());
+    }
+
+    //Pageable은 숫자가 아니면 기본값을 쓴다.
+    private static int parseOrDefault(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
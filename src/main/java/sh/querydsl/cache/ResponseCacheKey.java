@@ -0,0 +1,18 @@
+package sh.querydsl.cache;
+
+import lombok.Value;
+
+//MemberResponseCache의 키. path마다 응답을 바꾸는 요청 파라미터만 정규화해서 담는다.
+//cache buster(_=...)처럼 결과와 상관없는 파라미터는 무시하고, 기본값으로 채운 것과 생략한 것은 같은 키가 된다.
+@Value
+public class ResponseCacheKey {
+
+    String path;
+    ConditionKey condition;
+    int page;
+    int size;
+    String sort;
+    String mode;
+    String envelope;
+    String accept; //응답 포맷 (JSON, Smile, CBOR, x-member-rows)
+}
@@ -0,0 +1,130 @@
+package sh.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static sh.querydsl.entity.QTeam.team;
+
+//팀 이름 <-> id 사전. 팀은 수가 적고 거의 바뀌지 않으므로 통째로 메모리에 두고,
+//회원 검색은 team을 조인하지 않고 member.team_id로 거른 뒤 팀 이름을 여기서 채운다.
+//DataVersion.currentTeam()이 바뀌면(팀 insert/update/delete) 다음 조회 때 다시 읽는다.
+@Component
+public class TeamDictionary {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private volatile Snapshot snapshot;
+
+    public TeamDictionary(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    //같은 이름의 팀이 여러 개일 수 있으므로 id 목록. 없는 이름이면 빈 목록
+    public List<Long> idsOf(String teamName) {
+        return snapshot().idsByName.getOrDefault(teamName, Collections.emptyList());
+    }
+
+    public String nameOf(Long teamId) {
+        return teamId != null ? snapshot().nameById.get(teamId) : null;
+    }
+
+    //id -> 팀 이름 (현재 사전, 읽기 전용). 한 건씩 흘려보내는 조회(export)에서 사전을 한 번만 확인하려고 쓴다.
+    public Map<Long, String> teamNames() {
+        return Collections.unmodifiableMap(snapshot().nameById);
+    }
+
+    public List<MemberTeamDto> fillTeamNames(List<MemberTeamDto> rows) {
+        Snapshot current = snapshot();
+        for (MemberTeamDto row : rows) {
+            if (row.getTeamId() != null) {
+                row.setTeamName(current.nameById.get(row.getTeamId()));
+            }
+        }
+        return rows;
+    }
+
+    private Snapshot snapshot() {
+        //쓰기 트랜잭션 안에서 이름이 바뀐 팀이 있으면 flush해서 @PreUpdate(팀 버전)까지 반영한 뒤 판단한다.
+        //팀 insert/delete는 persist/remove 때 이미 버전을 올리므로, 회원만 바뀐 경우에는 flush하지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && teamRenamed()) {
+            em.flush();
+        }
+        //커밋 전 팀 변경은 이 트랜잭션에서만 보이므로 공유 사전에 넣지 않고 이번 조회에만 쓴다.
+        if (DataVersion.teamChangedInTransaction()) {
+            return load(-1);
+        }
+
+        long version = DataVersion.currentTeam();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        //동시에 여러 스레드가 다시 읽을 수 있지만 팀 수만큼의 작은 쿼리라 막지 않는다.
+        Snapshot loaded = load(version);
+        snapshot = loaded;
+        return loaded;
+    }
+
+    //영속성 컨텍스트의 Team만 보고 로딩 때와 이름이 다른 팀이 있는지 확인한다. (전체 dirty check 없이)
+    private boolean teamRenamed() {
+        PersistenceContext context = em.unwrap(SharedSessionContractImplementor.class).getPersistenceContext();
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            EntityEntry entityEntry = entry.getValue();
+            if (entry.getKey() instanceof Team
+                    && entityEntry.getStatus() == Status.MANAGED
+                    && !entityEntry.isReadOnly()
+                    && !Objects.equals(((Team) entry.getKey()).getName(), entityEntry.getLoadedValue("name"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Snapshot load(long version) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch();
+
+        Map<String, List<Long>> idsByName = new HashMap<>();
+        Map<Long, String> nameById = new HashMap<>();
+        for (Tuple row : teams) {
+            Long id = row.get(team.id);
+            String name = row.get(team.name);
+            nameById.put(id, name);
+            idsByName.computeIfAbsent(name, n -> new ArrayList<>(1)).add(id);
+        }
+        return new Snapshot(version, idsByName, nameById);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Map<String, List<Long>> idsByName;
+        private final Map<Long, String> nameById;
+
+        private Snapshot(long version, Map<String, List<Long>> idsByName, Map<Long, String> nameById) {
+            this.version = version;
+            this.idsByName = idsByName;
+            this.nameById = nameById;
+        }
+    }
+}
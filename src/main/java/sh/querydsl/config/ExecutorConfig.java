@@ -0,0 +1,70 @@
+package sh.querydsl.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    //searchPageConcurrent의 count 쿼리 전용. 스레드마다 커넥션을 하나 쓴다. (풀 크기는 application.yml의 hikari.maximum-pool-size 참고)
+    //큐까지 차면 요청 스레드에서 바로 센다. (동시 실행만 포기하고 결과는 같다)
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor memberCountExecutor(@Value("${member.count-executor.pool-size:2}") int poolSize,
+                                                      @Value("${member.count-executor.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-count-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    //비동기 검색(MemberAsyncController)의 bulkhead. 엔드포인트 종류마다 스레드풀을 따로 둬서
+    //느린 페이징 검색이 밀려도 단순 검색이나 Tomcat 요청 스레드(/hello 등)는 영향을 받지 않는다.
+    //큐까지 차면 기다리지 않고 TaskRejectedException -> 503
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor memberSearchBulkhead(@Value("${member.bulkhead.search.pool-size:3}") int poolSize,
+                                                       @Value("${member.bulkhead.search.queue-capacity:20}") int queueCapacity) {
+        return bulkhead("member-search-", poolSize, queueCapacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor memberPageBulkhead(@Value("${member.bulkhead.page.pool-size:3}") int poolSize,
+                                                     @Value("${member.bulkhead.page.queue-capacity:20}") int queueCapacity) {
+        return bulkhead("member-page-", poolSize, queueCapacity);
+    }
+
+    //chunk 단위 bulk update/delete(MemberBulkOperations) 작업자. 작업 하나가 parallelism만큼 스레드를 쓴다.
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor memberBulkExecutor(@Value("${member.bulk-job.threads:2}") int poolSize,
+                                                     @Value("${member.bulk-job.queue-capacity:20}") int queueCapacity) {
+        return bulkhead("member-bulk-", poolSize, queueCapacity);
+    }
+
+    //스레드풀마다 executor.queued(큐 깊이), executor.active, executor.completed ... 를 name=빈 이름 태그로 남긴다.
+    //MeterBinder는 스레드풀 빈이 초기화된 뒤에 호출되므로 getThreadPoolExecutor()를 바로 쓸 수 있다.
+    @Bean
+    public MeterBinder executorMetrics(Map<String, ThreadPoolTaskExecutor> executors) {
+        return registry -> executors.forEach((name, executor) ->
+                new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(registry));
+    }
+
+    private ThreadPoolTaskExecutor bulkhead(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,63 @@
+package sh.querydsl.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import sh.querydsl.repository.MemberChangeFeedListener;
+import sh.querydsl.repository.TeamStatsEventListener;
+import sh.querydsl.snapshot.MemberChangeFeed;
+
+import java.util.Collections;
+import java.util.Map;
+
+//Hibernate 이벤트 리스너를 EntityManagerFactory가 만들어질 때 등록한다.
+@Component
+public class HibernateListenerConfig implements HibernatePropertiesCustomizer {
+
+    private final MemberChangeFeed memberChangeFeed;
+
+    public HibernateListenerConfig(MemberChangeFeed memberChangeFeed) {
+        this.memberChangeFeed = memberChangeFeed;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> Collections.singletonList(new ListenerIntegrator(memberChangeFeed)));
+    }
+
+    static class ListenerIntegrator implements Integrator {
+
+        private final MemberChangeFeed memberChangeFeed;
+
+        ListenerIntegrator(MemberChangeFeed memberChangeFeed) {
+            this.memberChangeFeed = memberChangeFeed;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+            EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+
+            TeamStatsEventListener teamStats = new TeamStatsEventListener();
+            registry.appendListeners(EventType.POST_INSERT, teamStats);
+            registry.appendListeners(EventType.POST_UPDATE, teamStats);
+            registry.appendListeners(EventType.POST_DELETE, teamStats);
+
+            MemberChangeFeedListener memberChanges = new MemberChangeFeedListener(memberChangeFeed);
+            registry.appendListeners(EventType.POST_INSERT, memberChanges);
+            registry.appendListeners(EventType.POST_UPDATE, memberChanges);
+            registry.appendListeners(EventType.POST_DELETE, memberChanges);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package sh.querydsl.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PageEnvelope;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//MemberPage(envelope=COMPACT|COLUMNAR)를 JsonGenerator로 직접 쓴다.
+//ObjectMapper를 거치지 않으므로 리플렉션/직렬화기 조회가 없고, 필드 이름은 미리 인코딩해둔 SerializedString을 그대로 복사한다.
+//COMPACT  {"content":[{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"},...],"page":0,"size":20,"hasNext":true,"totalElements":100}
+//COLUMNAR {"memberId":[1,...],"username":["member1",...],"age":[10,...],"teamId":[1,...],"teams":{"1":"teamA"},"page":0,...}
+//같은 JsonGenerator API로 Smile/CBOR도 쓸 수 있으므로 SmileFactory/CBORFactory를 넘기면 같은 구조의 바이너리가 된다.
+public class MemberPageJsonConverter extends AbstractHttpMessageConverter<MemberPage> {
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+    private static final SerializableString TEAMS = new SerializedString("teams");
+    private static final SerializableString PAGE = new SerializedString("page");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString HAS_NEXT = new SerializedString("hasNext");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+
+    private final JsonFactory jsonFactory;
+
+    public MemberPageJsonConverter(JsonFactory jsonFactory) {
+        this(jsonFactory, MediaType.APPLICATION_JSON);
+    }
+
+    public MemberPageJsonConverter(JsonFactory jsonFactory, MediaType mediaType) {
+        super(mediaType);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberPage.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberPage readInternal(Class<? extends MemberPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberPage는 응답 전용입니다.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberPage page, HttpOutputMessage outputMessage) throws IOException {
+        //응답 스트림은 컨테이너(또는 MemberResponseCacheFilter)가 닫는다.
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            write(page, generator);
+        }
+    }
+
+    public static void write(MemberPage page, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (page.getEnvelope() == PageEnvelope.COLUMNAR) {
+            writeColumns(page.getContent(), generator);
+        } else {
+            writeRows(page.getContent(), generator);
+        }
+        generator.writeFieldName(PAGE);
+        generator.writeNumber(page.getPage());
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(HAS_NEXT);
+        generator.writeBoolean(page.isHasNext());
+        if (page.getTotalElements() != null) {
+            generator.writeFieldName(TOTAL_ELEMENTS);
+            generator.writeNumber(page.getTotalElements());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeRows(List<MemberTeamDto> content, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray();
+        for (MemberTeamDto row : content) {
+            generator.writeStartObject();
+            generator.writeFieldName(MEMBER_ID);
+            writeNumber(generator, row.getMemberId());
+            generator.writeFieldName(USERNAME);
+            generator.writeString(row.getUsername());
+            generator.writeFieldName(AGE);
+            generator.writeNumber(row.getAge());
+            generator.writeFieldName(TEAM_ID);
+            writeNumber(generator, row.getTeamId());
+            generator.writeFieldName(TEAM_NAME);
+            generator.writeString(row.getTeamName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    //컬럼마다 한 번씩 훑는다. 팀 이름은 row마다 반복하지 않고 teamId -> 이름 사전으로 한 번만 쓴다.
+    private static void writeColumns(List<MemberTeamDto> content, JsonGenerator generator) throws IOException {
+        generator.writeFieldName(MEMBER_ID);
+        generator.writeStartArray();
+        for (MemberTeamDto row : content) {
+            writeNumber(generator, row.getMemberId());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(USERNAME);
+        generator.writeStartArray();
+        for (MemberTeamDto row : content) {
+            generator.writeString(row.getUsername());
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(AGE);
+        generator.writeStartArray();
+        for (MemberTeamDto row : content) {
+            generator.writeNumber(row.getAge());
+        }
+        generator.writeEndArray();
+
+        Map<Long, String> teams = new LinkedHashMap<>();
+        generator.writeFieldName(TEAM_ID);
+        generator.writeStartArray();
+        for (MemberTeamDto row : content) {
+            writeNumber(generator, row.getTeamId());
+            if (row.getTeamId() != null) {
+                teams.putIfAbsent(row.getTeamId(), row.getTeamName());
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName(TEAMS);
+        generator.writeStartObject();
+        for (Map.Entry<Long, String> team : teams.entrySet()) {
+            generator.writeFieldName(String.valueOf(team.getKey()));
+            generator.writeString(team.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package sh.querydsl.config;
+
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//application/x-member-rows: 서비스 간 호출용 길이 접두 row 포맷. 모든 정수는 big-endian (DataOutputStream)
+//  header: int magic("MROW") | byte version | int page | int size | boolean hasNext | long totalElements(-1: 모름) | int rowCount
+//  row   : int rowBytes | long memberId | string username | int age | long teamId(-1: 없음) | string teamName
+//  string: int byteLength(-1: null) | UTF-8 bytes
+//row마다 길이가 앞에 있어서 읽는 쪽은 모르는 필드가 뒤에 붙어도 건너뛸 수 있다.
+public final class MemberRowsCodec {
+
+    public static final String MEDIA_TYPE = "application/x-member-rows";
+
+    private static final int MAGIC = 0x4D524F57;
+    private static final byte VERSION = 1;
+    private static final long NONE = -1L;
+
+    private MemberRowsCodec() {
+    }
+
+    public static void write(MemberPage page, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        List<MemberTeamDto> content = page.getContent();
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(page.getPage());
+        data.writeInt(page.getSize());
+        data.writeBoolean(page.isHasNext());
+        data.writeLong(page.getTotalElements() != null ? page.getTotalElements() : NONE);
+        data.writeInt(content.size());
+
+        //row 길이를 먼저 써야 하므로 row 하나를 버퍼에 쓰고 옮긴다. 버퍼는 row마다 다시 쓴다.
+        ByteArrayOutputStream rowBuffer = new ByteArrayOutputStream(64);
+        DataOutputStream row = new DataOutputStream(rowBuffer);
+        for (MemberTeamDto dto : content) {
+            rowBuffer.reset();
+            row.writeLong(dto.getMemberId() != null ? dto.getMemberId() : NONE);
+            writeString(row, dto.getUsername());
+            row.writeInt(dto.getAge());
+            row.writeLong(dto.getTeamId() != null ? dto.getTeamId() : NONE);
+            writeString(row, dto.getTeamName());
+            data.writeInt(rowBuffer.size());
+            rowBuffer.writeTo(data);
+        }
+        data.flush();
+    }
+
+    public static MemberPage read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("x-member-rows 형식이 아닙니다.");
+        }
+        byte version = data.readByte();
+        if (version != VERSION) {
+            throw new IOException("지원하지 않는 x-member-rows 버전입니다. " + version);
+        }
+        int page = data.readInt();
+        int size = data.readInt();
+        boolean hasNext = data.readBoolean();
+        long total = data.readLong();
+        int rowCount = data.readInt();
+
+        List<MemberTeamDto> content = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            int rowBytes = data.readInt();
+            byte[] row = new byte[rowBytes];
+            data.readFully(row);
+            DataInputStream rowData = new DataInputStream(new ByteArrayInputStream(row));
+            long memberId = rowData.readLong();
+            String username = readString(rowData);
+            int age = rowData.readInt();
+            long teamId = rowData.readLong();
+            String teamName = readString(rowData);
+            content.add(new MemberTeamDto(memberId == NONE ? null : memberId, username, age,
+                    teamId == NONE ? null : teamId, teamName));
+        }
+        return new MemberPage(content, page, size, hasNext, total == NONE ? null : total, null);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package sh.querydsl.config;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+//Accept: application/x-member-rows 로 회원 검색 결과(List, Slice/Page, MemberPage)를 MemberRowsCodec 포맷으로 쓴다.
+//JSON보다 뒤에 등록해서 Accept가 없거나 */*인 요청은 지금처럼 JSON을 받는다.
+public class MemberRowsConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public MemberRowsConverter() {
+        super(MediaType.parseMediaType(MemberRowsCodec.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberPage.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (MemberPage.class == clazz) {
+            return true;
+        }
+        if (type == null || !(Slice.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz))) {
+            return false;
+        }
+        return ResolvableType.forType(type).as(Iterable.class).getGeneric(0).resolve() == MemberTeamDto.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        MemberPage page;
+        if (value instanceof MemberPage) {
+            page = (MemberPage) value;
+        } else if (value instanceof Slice) {
+            page = MemberPage.of((Slice<MemberTeamDto>) value, null);
+        } else {
+            List<MemberTeamDto> rows = (List<MemberTeamDto>) value;
+            page = new MemberPage(rows, 0, rows.size(), false, (long) rows.size(), null);
+        }
+        //작은 write가 row마다 여러 번 나가므로 버퍼를 둔다.
+        OutputStream body = new BufferedOutputStream(StreamUtils.nonClosing(outputMessage.getBody()), 8192);
+        MemberRowsCodec.write(page, body);
+        body.flush();
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("x-member-rows는 응답 전용입니다.", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("x-member-rows는 응답 전용입니다.", inputMessage);
+    }
+}
@@ -0,0 +1,53 @@
+package sh.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import sh.querydsl.dto.PageEnvelope;
+import sh.querydsl.dto.PagingMode;
+import sh.querydsl.monitor.SqlBudgetInterceptor;
+import sh.querydsl.monitor.SqlBudgetProperties;
+
+import java.util.List;
+import java.util.Locale;
+
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SqlBudgetProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SqlBudgetInterceptor sqlBudgetInterceptor;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlBudgetInterceptor);
+    }
+
+    //mode=slice도 SLICE로 받는다. MemberResponseCacheFilter도 키를 대문자로 만들므로 캐시에 있든 없든 결과가 같다.
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, PagingMode.class, source -> PagingMode.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+        registry.addConverter(String.class, PageEnvelope.class, source -> PageEnvelope.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    //MemberPage만 처리하므로 Jackson 컨버터보다 앞에 둔다. JSON을 맨 앞에 둬서 Accept가 */*면 JSON이 나간다.
+    //List/Slice의 Smile/CBOR는 classpath에 dataformat이 있으면 스프링이 기본으로 등록하는 Jackson 컨버터가 쓴다.
+    //x-member-rows는 명시적으로 요청할 때만 쓰이도록 맨 뒤에 둔다.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new MemberPageJsonConverter(objectMapper.getFactory()));
+        converters.add(1, new MemberPageJsonConverter(new SmileFactory(), new MediaType("application", "x-jackson-smile")));
+        converters.add(2, new MemberPageJsonConverter(new CBORFactory(), MediaType.APPLICATION_CBOR));
+        converters.add(new MemberRowsConverter());
+    }
+}
@@ -0,0 +1,67 @@
+package sh.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final EntityManagerFactory emf;
+
+    //http://localhost:8080/cache/stats
+    //region별 hit/miss/put은 Hibernate 통계에서, eviction은 ehcache의 JCache 통계(JMX)에서 가져온다.
+    @GetMapping("/cache/stats")
+    public Map<String, Map<String, Long>> cacheStats() throws JMException {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Long> evictions = evictions();
+
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        for (String entityName : statistics.getEntityNames()) {
+            EntityStatistics entity = statistics.getEntityStatistics(entityName);
+            String regionName = entity.getCacheRegionName();
+            if (regionName == null) {
+                continue; //캐시하지 않는 엔티티
+            }
+            result.put(regionName, regionStats(entity.getCacheHitCount(), entity.getCacheMissCount(),
+                    entity.getCachePutCount(), evictions.getOrDefault(regionName, 0L)));
+        }
+        result.put("query-cache", regionStats(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(), evictions.getOrDefault("default-query-results-region", 0L)));
+        return result;
+    }
+
+    private Map<String, Long> regionStats(long hit, long miss, long put, long eviction) {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hit", hit);
+        stats.put("miss", miss);
+        stats.put("put", put);
+        stats.put("eviction", eviction);
+        return stats;
+    }
+
+    private Map<String, Long> evictions() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Map<String, Long> evictions = new LinkedHashMap<>();
+        for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+            String cache = name.getKeyProperty("Cache");
+            if (cache.startsWith("\"")) {
+                cache = ObjectName.unquote(cache);
+            }
+            evictions.put(cache, (Long) server.getAttribute(name, "CacheEvictions"));
+        }
+        return evictions;
+    }
+}
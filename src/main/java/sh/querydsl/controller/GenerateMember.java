@@ -0,0 +1,189 @@
+package sh.querydsl.controller;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import sh.querydsl.cache.DataVersion;
+import sh.querydsl.repository.TeamStatsRepository;
+import sh.querydsl.snapshot.MemberChangeFeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+//InitMember(팀 2개, 회원 100명) 대신 운영 규모의 데이터를 만드는 생성기.
+//--spring.profiles.active=generate 로 실행하고 회원 수/팀 수/나이 분포/username 쏠림은 application.yml의 generator.* 로 정한다.
+//회원 id 범위를 스레드 수만큼 나눠서 각자 다른 커넥션으로 JDBC batch insert를 한다.
+@Slf4j
+@Profile("generate")
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(GenerateMember.GeneratorProperties.class)
+public class GenerateMember implements ApplicationRunner {
+
+    //Member, Team의 @SequenceGenerator allocationSize와 같아야 한다.
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GeneratorProperties properties;
+    private final TeamStatsRepository teamStatsRepository;
+    private final MemberChangeFeed memberChangeFeed;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+
+        long firstTeamId = reserveIds("team_seq", properties.getTeams());
+        long firstMemberId = reserveIds("member_seq", properties.getMembers());
+
+        List<Object[]> teams = new ArrayList<>(properties.getTeams());
+        for (int i = 0; i < properties.getTeams(); i++) {
+            teams.add(new Object[]{firstTeamId + i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        UsernameSampler usernames = new UsernameSampler(properties.getUsernameSkew(), properties.getUsernamePool());
+        AtomicLong inserted = new AtomicLong();
+
+        int threads = properties.getThreads();
+        long perThread = (properties.getMembers() + threads - 1) / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                long from = t * perThread;
+                long to = Math.min(properties.getMembers(), from + perThread);
+                Random random = new Random(properties.getSeed() + t);
+                futures.add(executor.submit(() ->
+                        insertMembers(from, to, firstMemberId, firstTeamId, usernames, random, inserted)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        DataVersion.bumpTeam(); //JPA를 거치지 않고 넣었으므로 캐시를 직접 무효화하고 팀 집계도 다시 만든다.
+        teamStatsRepository.reconcile();
+        memberChangeFeed.publishReset();
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("generated teams={} members={} in {}ms ({} rows/s)",
+                properties.getTeams(), inserted.get(), elapsedMillis, inserted.get() * 1000 / elapsedMillis);
+    }
+
+    private void insertMembers(long from, long to, long firstMemberId, long firstTeamId,
+                               UsernameSampler usernames, Random random, AtomicLong inserted) {
+        List<Object[]> batch = new ArrayList<>(properties.getBatchSize());
+        for (long i = from; i < to; i++) {
+            long memberId = firstMemberId + i;
+            batch.add(new Object[]{
+                    memberId,
+                    usernames.next(memberId, random),
+                    age(random),
+                    firstTeamId + random.nextInt(properties.getTeams())});
+
+            if (batch.size() == properties.getBatchSize()) {
+                flush(batch, inserted);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, inserted);
+        }
+    }
+
+    private void flush(List<Object[]> batch, AtomicLong inserted) {
+        jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+        long total = inserted.addAndGet(batch.size());
+        if (total / 1_000_000 != (total - batch.size()) / 1_000_000) {
+            log.info("generated members={}", total);
+        }
+        batch.clear();
+    }
+
+    private int age(Random random) {
+        int age;
+        if (properties.getAgeDistribution() == AgeDistribution.NORMAL) {
+            age = (int) Math.round(properties.getAgeMean() + random.nextGaussian() * properties.getAgeStddev());
+        } else {
+            age = properties.getAgeMin() + random.nextInt(properties.getAgeMax() - properties.getAgeMin() + 1);
+        }
+        return Math.max(properties.getAgeMin(), Math.min(properties.getAgeMax(), age));
+    }
+
+    //pooled-lo 시퀀스에서 count개의 연속된 id를 예약한다.
+    //받아온 값부터 count개를 쓰고, 시퀀스는 그 뒤(블록 경계)부터 다시 시작하게 해서 JPA insert와 겹치지 않게 한다.
+    private long reserveIds(String sequence, long count) {
+        Long first = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+        long blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (first + Math.max(1, blocks) * ALLOCATION_SIZE));
+        return first;
+    }
+
+    public enum AgeDistribution {
+        UNIFORM, NORMAL
+    }
+
+    //usernameSkew가 0이면 모든 회원이 member{id}로 유일하고,
+    //0보다 크면 user0 ~ user{pool-1} 중에서 zipf(s = usernameSkew) 분포로 골라서 일부 이름에 회원이 몰리게 한다.
+    static final class UsernameSampler {
+
+        private final double[] cumulative;
+
+        UsernameSampler(double skew, int pool) {
+            if (skew <= 0) {
+                this.cumulative = null;
+                return;
+            }
+            this.cumulative = new double[pool];
+            double sum = 0;
+            for (int rank = 0; rank < pool; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < pool; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        String next(long memberId, Random random) {
+            if (cumulative == null) {
+                return "member" + memberId;
+            }
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return "user" + (rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1));
+        }
+    }
+
+    @Getter
+    @Setter
+    @ConfigurationProperties(prefix = "generator")
+    public static class GeneratorProperties {
+        private long members = 1_000_000;
+        private int teams = 100;
+        private AgeDistribution ageDistribution = AgeDistribution.UNIFORM;
+        private int ageMin = 0;
+        private int ageMax = 99;
+        private double ageMean = 40;
+        private double ageStddev = 15;
+        private double usernameSkew = 0;
+        private int usernamePool = 100_000;
+        private int threads = 4;  //spring.datasource.hikari.maximum-pool-size보다 크면 커넥션을 기다린다.
+        private int batchSize = 1000;
+        private long seed = 42;
+    }
+}
@@ -11,7 +11,8 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
-@Profile("local")
+//generate 프로파일이 같이 켜져 있으면 GenerateMember가 데이터를 만든다.
+@Profile("local & !generate")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
@@ -0,0 +1,80 @@
+package sh.querydsl.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PagingMode;
+import sh.querydsl.dto.SearchSource;
+import sh.querydsl.service.MemberSearchService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+//MemberController의 v1~v3 검색(MemberSearchService)을 Tomcat 요청 스레드가 아닌 bulkhead 스레드풀에서 실행한다.
+//요청 스레드는 CompletableFuture를 돌려주고 바로 반환되며, 결과는 완료될 때 응답으로 쓰인다.
+//스레드풀 상태는 /actuator/metrics/executor.queued?tag=name:memberPageBulkhead 처럼 본다.
+@RestController
+public class MemberAsyncController {
+
+    private final MemberSearchService memberSearchService;
+    private final Executor searchBulkhead;
+    private final Executor pageBulkhead;
+    private final MeterRegistry meterRegistry;
+
+    public MemberAsyncController(MemberSearchService memberSearchService,
+                                 @Qualifier("memberSearchBulkhead") Executor searchBulkhead,
+                                 @Qualifier("memberPageBulkhead") Executor pageBulkhead,
+                                 MeterRegistry meterRegistry) {
+        this.memberSearchService = memberSearchService;
+        this.searchBulkhead = searchBulkhead;
+        this.pageBulkhead = pageBulkhead;
+        this.meterRegistry = meterRegistry;
+    }
+
+    //http://localhost:8080/v1/members/async?teamName=teamA
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition,
+                                                                 @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return submit("memberSearchBulkhead", searchBulkhead, () -> memberSearchService.search(condition, source));
+    }
+
+    //http://localhost:8080/v2/members/async?ageGoe=99&page=0&size=50
+    @GetMapping("/v2/members/async")
+    public CompletableFuture<Slice<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                                                  @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                                                  @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return submit("memberPageBulkhead", pageBulkhead,
+                () -> memberSearchService.searchPage(condition, pageable, mode, source));
+    }
+
+    //http://localhost:8080/v3/members/async?page=0&size=5&mode=SLICE
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Slice<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                                                  @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                                                  @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return submit("memberPageBulkhead", pageBulkhead,
+                () -> memberSearchService.searchPage(condition, pageable, mode, source));
+    }
+
+    //bulkhead가 가득 차면 큐에서 기다리게 하지 않고 바로 503을 돌려준다.
+    private <T> CompletableFuture<T> submit(String bulkhead, Executor executor, Supplier<T> search) {
+        try {
+            return CompletableFuture.supplyAsync(search, executor);
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("member.bulkhead.rejected", "name", bulkhead).increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "검색 요청이 밀려 있습니다. 잠시 후 다시 시도해주세요.", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package sh.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import sh.querydsl.dto.MemberBulkJobDto;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.repository.MemberBulkOperations;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberBulkJobController {
+
+    private final MemberBulkOperations memberBulkOperations;
+
+    //POST http://localhost:8080/v1/members/bulk-jobs
+    //{"operation":"ADD_AGE","ageDelta":1,"condition":{"teamName":"teamA"},"parallelism":2}
+    //바로 202와 작업 id를 돌려주고, 진행 상황은 GET /v1/members/bulk-jobs/{id}로 본다.
+    @PostMapping("/v1/members/bulk-jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public MemberBulkJobDto submitBulkJob(@RequestBody MemberBulkJobRequest request) {
+        try {
+            return memberBulkOperations.submit(request);
+        } catch (IllegalArgumentException e) { //operation 누락, username 없는 SET_USERNAME, chunkSize < 1
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "실행 중인 bulk 작업이 많습니다. 잠시 후 다시 시도해주세요.", e);
+        }
+    }
+
+    @GetMapping("/v1/members/bulk-jobs/{id}")
+    public MemberBulkJobDto findBulkJob(@PathVariable long id) {
+        return memberBulkOperations.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "bulk 작업이 없습니다: " + id));
+    }
+
+    @GetMapping("/v1/members/bulk-jobs")
+    public List<MemberBulkJobDto> findBulkJobs() {
+        return memberBulkOperations.findAll();
+    }
+}
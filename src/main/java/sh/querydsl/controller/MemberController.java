@@ -1,28 +1,125 @@
 package sh.querydsl.controller;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import sh.querydsl.dto.CursorPage;
+import sh.querydsl.dto.MemberBulkResultDto;
+import sh.querydsl.dto.MemberCreateDto;
+import sh.querydsl.dto.MemberPage;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PageEnvelope;
+import sh.querydsl.dto.PagingMode;
+import sh.querydsl.dto.SearchSource;
+import sh.querydsl.dto.UsernameSuggestionDto;
 import sh.querydsl.repository.MemberJpaRepository;
 import sh.querydsl.repository.MemberRepository;
+import sh.querydsl.service.MemberSearchService;
+import sh.querydsl.snapshot.UsernameAutocomplete;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
-@RequiredArgsConstructor
 public class MemberController {
 
+    //MemberResponseCacheFilter가 /v2, /v3의 size를 자르는 값과 같다.
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
     private final MemberJpaRepository memberJpaRepository;
 
     private final MemberRepository memberRepository;
 
+    private final ObjectMapper objectMapper;
+
+    private final MemberSearchService memberSearchService;
+
+    private final UsernameAutocomplete usernameAutocomplete;
+
+    private final int bulkMaxRows;
+
+    public MemberController(MemberJpaRepository memberJpaRepository, MemberRepository memberRepository,
+                            ObjectMapper objectMapper, MemberSearchService memberSearchService,
+                            UsernameAutocomplete usernameAutocomplete,
+                            @Value("${member.bulk.max-rows:10000}") int bulkMaxRows) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.objectMapper = objectMapper;
+        this.memberSearchService = memberSearchService;
+        this.usernameAutocomplete = usernameAutocomplete;
+        this.bulkMaxRows = bulkMaxRows;
+    }
+
+    //http://localhost:8080/v1/members?teamName=teamA&source=SNAPSHOT -> DB 대신 메모리 스냅샷에서 찾는다.
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition,
+                                              @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return memberSearchService.search(condition, source);
+    }
+
+    //http://localhost:8080/v1/members/autocomplete?prefix=member1&size=5
+    //prefix로 시작하는 username을 회원 수가 많은 순으로. DB를 조회하지 않는다. (size는 member.autocomplete.top-k까지)
+    @GetMapping("/v1/members/autocomplete")
+    public List<UsernameSuggestionDto> autocompleteUsernameV1(@RequestParam String prefix,
+                                                              @RequestParam(defaultValue = "10") int size) {
+        if (size < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size는 0 이상이어야 합니다: " + size);
+        }
+        if (!usernameAutocomplete.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "username 자동완성을 준비 중입니다.");
+        }
+        return usernameAutocomplete.suggest(prefix, Math.min(size, usernameAutocomplete.getTopK()));
+    }
+
+    //POST http://localhost:8080/v1/members/bulk  [{"username":"member1","age":10,"teamId":1}, ...]
+    //응답의 rowsPerSecond로 한 건씩 save하던 것과 처리량을 비교할 수 있다.
+    @PostMapping("/v1/members/bulk")
+    public MemberBulkResultDto bulkCreateMemberV1(@RequestBody List<MemberCreateDto> members) {
+        if (members.size() > bulkMaxRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "한 번에 저장할 수 있는 회원 수는 " + bulkMaxRows + "명 입니다.");
+        }
+        long start = System.nanoTime();
+        int count = memberJpaRepository.saveAll(members);
+        return new MemberBulkResultDto(count, System.nanoTime() - start);
+    }
+
+    //http://localhost:8080/v1/members/export?teamName=teamA
+    //v1과 같은 조건으로 조회하지만 List를 만들지 않고 한 줄에 MemberTeamDto 하나씩(NDJSON) 바로 응답에 쓴다.
+    @GetMapping(value = "/v1/members/export", produces = "application/x-ndjson")
+    public void exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        //값마다 flush하면 작은 chunk가 너무 많이 나가므로 버퍼가 찰 때만 내보낸다.
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            memberJpaRepository.export(condition, dto -> {
+                try {
+                    writer.writeValue(generator, dto);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
 
@@ -30,14 +127,56 @@ public class MemberController {
     //전체 데이터는 100개 넣어놓은 상태인데 페이징 사이즈를 50개로 했다.그리고 조건에 99살 이사응로 조건을 걸었기 때문에 조건에 부합하는 값은 많아야
     //5개를 넘지 못한다. 그렇기 때문에 위의 경우, count쿼리를 날리지 않는다.
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageUpgrade(condition,pageable);
+    public Slice<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                               @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                               @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return memberSearchService.searchPage(condition, pageable, mode, source);
     }
 
     //http://localhost:8080/v3/members?page=0&size=5
+    //http://localhost:8080/v3/members?page=0&size=5&mode=SLICE -> count 쿼리 없이 hasNext(last)만 내려준다.
+    //http://localhost:8080/v3/members?page=3&size=5&mode=CONCURRENT -> count를 content와 동시에 실행한다.
+    //http://localhost:8080/v3/members?page=0&size=5&sort=age,desc&source=SNAPSHOT -> 메모리 스냅샷에서 정확한 total과 함께 찾는다.
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageUpgrade(condition,pageable);
+    public Slice<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable,
+                                                 @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                                 @RequestParam(defaultValue = "JPA") SearchSource source) {
+        return memberSearchService.searchPage(condition, pageable, mode, source);
+    }
+
+    //http://localhost:8080/v2/members?page=0&size=50&envelope=COMPACT -> Pageable/Sort 없이 필요한 값만 (MemberPageJsonConverter)
+    //http://localhost:8080/v2/members?page=0&size=500&envelope=COLUMNAR -> 컬럼별 배열. 큰 페이지일수록 줄어드는 byte가 크다.
+    @GetMapping(value = "/v2/members", params = "envelope")
+    public MemberPage searchMemberV2Envelope(MemberSearchCondition condition, Pageable pageable,
+                                             @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                             @RequestParam(defaultValue = "JPA") SearchSource source,
+                                             @RequestParam PageEnvelope envelope) {
+        return MemberPage.of(memberSearchService.searchPage(condition, pageable, mode, source), envelope);
+    }
+
+    @GetMapping(value = "/v3/members", params = "envelope")
+    public MemberPage searchPageSimpleEnvelope(MemberSearchCondition condition, Pageable pageable,
+                                               @RequestParam(defaultValue = "PAGE") PagingMode mode,
+                                               @RequestParam(defaultValue = "JPA") SearchSource source,
+                                               @RequestParam PageEnvelope envelope) {
+        return MemberPage.of(memberSearchService.searchPage(condition, pageable, mode, source), envelope);
+    }
+
+    //http://localhost:8080/v4/members?size=20 -> 응답의 nextCursor를 cursor로 넘겨서 다음 페이지 조회
+    //offset이 없어서 몇 번째 페이지든 앞의 row들을 읽고 버리지 않는다.
+    @GetMapping("/v4/members")
+    public CursorPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "size는 1 이상 " + MAX_CURSOR_PAGE_SIZE + " 이하여야 합니다: " + size);
+        }
+        try {
+            return memberRepository.searchAfter(condition, cursor, size);
+        } catch (IllegalArgumentException e) { //MemberCursor.decode: 잘못된 cursor
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
 }
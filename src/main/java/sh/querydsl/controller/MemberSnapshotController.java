@@ -0,0 +1,32 @@
+package sh.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import sh.querydsl.dto.MemberSnapshotStatsDto;
+import sh.querydsl.snapshot.MemberSnapshot;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberSnapshotController {
+
+    private final MemberSnapshot memberSnapshot;
+
+    //http://localhost:8080/members/snapshot -> row 수, username 사전 크기, 대략적인 메모리 사용량(footprintBytes)
+    @GetMapping("/members/snapshot")
+    public MemberSnapshotStatsDto snapshotStats() {
+        return memberSnapshot.stats();
+    }
+
+    //변경 이벤트 없이 DB를 직접 고친 뒤 스냅샷을 바로 다시 만들 때
+    @PostMapping("/members/snapshot/rebuild")
+    public MemberSnapshotStatsDto rebuildSnapshot() {
+        if (!memberSnapshot.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "member.snapshot.enabled=false 입니다.");
+        }
+        return memberSnapshot.rebuild();
+    }
+}
@@ -0,0 +1,63 @@
+package sh.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import sh.querydsl.dto.IndexAdviceDto;
+import sh.querydsl.dto.SlowQueryDto;
+import sh.querydsl.dto.SqlShapeStatsDto;
+import sh.querydsl.monitor.IndexAdvisor;
+import sh.querydsl.monitor.SlowQueryLog;
+import sh.querydsl.monitor.SqlLatencyRecorder;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class SqlStatsController {
+
+    private final SqlLatencyRecorder sqlLatencyRecorder;
+    private final IndexAdvisor indexAdvisor;
+    private final SlowQueryLog slowQueryLog;
+
+    //http://localhost:8080/sql/stats
+    //SQL 모양별 호출 수와 실행/fetch 시간의 p50/p99/max(마이크로초). 전체 시간이 큰 순서
+    @GetMapping("/sql/stats")
+    public List<SqlShapeStatsDto> sqlStats() {
+        return sqlLatencyRecorder.snapshot();
+    }
+
+    @DeleteMapping("/sql/stats")
+    public void resetSqlStats() {
+        sqlLatencyRecorder.reset();
+    }
+
+    //http://localhost:8080/sql/index-advice
+    //지금까지 실행된 select를 EXPLAIN해서 full scan을 없앨 인덱스를 보여준다.
+    //http://localhost:8080/sql/index-advice?analyze=true -> 샘플 쿼리를 실제로 실행(EXPLAIN ANALYZE)해서 현재 비용(scanCount)까지
+    @GetMapping("/sql/index-advice")
+    public List<IndexAdviceDto> indexAdvice(@RequestParam(defaultValue = "false") boolean analyze) {
+        return indexAdvisor.advise(analyze);
+    }
+
+    //제안된 인덱스를 만든다. analyze=true면 같은 쿼리들의 비용을 전후로 잰다.
+    @PostMapping("/sql/index-advice/apply")
+    public List<IndexAdviceDto> applyIndexAdvice(@RequestParam(defaultValue = "false") boolean analyze) {
+        return indexAdvisor.apply(analyze);
+    }
+
+    //http://localhost:8080/sql/slow-queries?limit=20
+    //sql.slow-query.threshold-millis를 넘은 SQL. 최근 것부터, 실행한 리포지토리 메서드/검색 조건/EXPLAIN 계획과 함께
+    @GetMapping("/sql/slow-queries")
+    public List<SlowQueryDto> slowQueries(@RequestParam(defaultValue = "50") int limit) {
+        return slowQueryLog.recent(limit);
+    }
+
+    @DeleteMapping("/sql/slow-queries")
+    public void resetSlowQueries() {
+        slowQueryLog.reset();
+    }
+}
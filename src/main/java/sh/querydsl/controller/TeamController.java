@@ -0,0 +1,31 @@
+package sh.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import sh.querydsl.dto.ReconcileResultDto;
+import sh.querydsl.dto.TeamStatsDto;
+import sh.querydsl.repository.TeamStatsRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    //http://localhost:8080/teams/stats
+    //QueryBasicTest.group/aggregation 처럼 member 전체를 group by 하지 않고 팀별 집계 테이블만 읽는다.
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsRepository.findAll();
+    }
+
+    //집계 테이블을 전체 재집계 결과와 비교해서 맞춘다. (TeamStatsReconciler가 주기적으로도 실행한다)
+    @PostMapping("/teams/stats/reconcile")
+    public ReconcileResultDto reconcileTeamStats() {
+        return teamStatsRepository.reconcile();
+    }
+}
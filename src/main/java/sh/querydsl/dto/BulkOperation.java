@@ -0,0 +1,8 @@
+package sh.querydsl.dto;
+
+//POST /v1/members/bulk-jobs 의 operation
+public enum BulkOperation {
+    ADD_AGE,      //age = age + ageDelta
+    SET_USERNAME, //대상 회원의 username을 요청의 username 값으로 바꾼다.
+    DELETE
+}
@@ -0,0 +1,22 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+//keyset(seek) 페이징 결과. nextCursor를 그대로 다음 요청의 cursor로 넘기면 이어서 조회된다.
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
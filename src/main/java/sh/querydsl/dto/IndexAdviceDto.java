@@ -0,0 +1,27 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+//cost는 H2 EXPLAIN ANALYZE의 scanCount 합 (해당 인덱스로 도움을 받을 샘플 쿼리들 기준). analyze를 요청하지 않으면 null
+@Getter
+public class IndexAdviceDto {
+
+    private final String table;
+    private final List<String> columns;
+    private final String ddl;
+    private final List<String> shapes;
+    private final Long costBefore;
+    private final Long costAfter;
+
+    public IndexAdviceDto(String table, List<String> columns, String ddl, List<String> shapes,
+                          Long costBefore, Long costAfter) {
+        this.table = table;
+        this.columns = columns;
+        this.ddl = ddl;
+        this.shapes = shapes;
+        this.costBefore = costBefore;
+        this.costAfter = costAfter;
+    }
+}
@@ -0,0 +1,32 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class MemberBulkJobDto {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final long id;
+    private final BulkOperation operation;
+    private final Status status;
+    private final int totalChunks;
+    private final int completedChunks;
+    private final long affectedRows;
+    private final long elapsedMillis;
+    private final String error;
+
+    public MemberBulkJobDto(long id, BulkOperation operation, Status status, int totalChunks, int completedChunks,
+                            long affectedRows, long elapsedMillis, String error) {
+        this.id = id;
+        this.operation = operation;
+        this.status = status;
+        this.totalChunks = totalChunks;
+        this.completedChunks = completedChunks;
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+}
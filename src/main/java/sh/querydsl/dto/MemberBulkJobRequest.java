@@ -0,0 +1,24 @@
+package sh.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberBulkJobRequest {
+
+    private BulkOperation operation;
+    //대상 회원. 비어있으면 전체
+    private MemberSearchCondition condition = new MemberSearchCondition();
+
+    private int ageDelta;     //ADD_AGE
+    private String username;  //SET_USERNAME
+
+    private int parallelism = 1;  //동시에 처리할 chunk 수 (member.bulk-job.threads 이하로 의미가 있다)
+    private Integer chunkSize;    //비어있으면 member.bulk-job.chunk-size
+
+    public MemberBulkJobRequest(BulkOperation operation, MemberSearchCondition condition) {
+        this.operation = operation;
+        this.condition = condition;
+    }
+}
@@ -0,0 +1,17 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class MemberBulkResultDto {
+
+    private final int count;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+
+    public MemberBulkResultDto(int count, long elapsedNanos) {
+        this.count = count;
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos > 0 ? count * 1_000_000_000L / elapsedNanos : 0;
+    }
+}
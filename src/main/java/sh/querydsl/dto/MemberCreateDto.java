@@ -0,0 +1,19 @@
+package sh.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberCreateDto {
+
+    private String username;
+    private int age;
+    private Long teamId;
+
+    public MemberCreateDto(String username, int age, Long teamId) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,34 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+//envelope=COMPACT|COLUMNAR 응답. MemberPageJsonConverter가 Jackson 직렬화 없이 직접 쓴다.
+@Getter
+public class MemberPage {
+
+    private final List<MemberTeamDto> content;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+    private final Long totalElements; //SLICE면 null
+    private final PageEnvelope envelope;
+
+    public MemberPage(List<MemberTeamDto> content, int page, int size, boolean hasNext, Long totalElements,
+                      PageEnvelope envelope) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.totalElements = totalElements;
+        this.envelope = envelope;
+    }
+
+    public static MemberPage of(Slice<MemberTeamDto> slice, PageEnvelope envelope) {
+        Long total = slice instanceof Page ? ((Page<MemberTeamDto>) slice).getTotalElements() : null;
+        return new MemberPage(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), total, envelope);
+    }
+}
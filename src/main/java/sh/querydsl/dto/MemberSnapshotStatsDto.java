@@ -0,0 +1,28 @@
+package sh.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberSnapshotStatsDto {
+
+    private boolean ready;
+    private int rows;
+    private int distinctUsernames;
+    private long footprintBytes;
+    private long pendingChanges;
+    private long appliedChanges;
+    private long fullBuilds;
+    private long lastBuildMillis;
+
+    public MemberSnapshotStatsDto(boolean ready, int rows, int distinctUsernames, long footprintBytes,
+                                  long pendingChanges, long appliedChanges, long fullBuilds, long lastBuildMillis) {
+        this.ready = ready;
+        this.rows = rows;
+        this.distinctUsernames = distinctUsernames;
+        this.footprintBytes = footprintBytes;
+        this.pendingChanges = pendingChanges;
+        this.appliedChanges = appliedChanges;
+        this.fullBuilds = fullBuilds;
+        this.lastBuildMillis = lastBuildMillis;
+    }
+}
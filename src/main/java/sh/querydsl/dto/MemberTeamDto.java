@@ -20,4 +20,10 @@ public class MemberTeamDto {
         this.teamId = teamId;
         this.teamName = teamName;
     }
+
+    //team 조인 없이 member.team_id만 읽는 검색용. teamName은 조회 후 TeamDictionary로 채운다.
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, Long teamId) {
+        this(memberId, username, age, teamId, null);
+    }
 }
@@ -0,0 +1,7 @@
+package sh.querydsl.dto;
+
+//v2, v3 페이징 API의 envelope 파라미터. 없으면 지금처럼 Page(Slice)를 Jackson이 그대로 직렬화한다.
+public enum PageEnvelope {
+    COMPACT,  //content + page, size, hasNext, totalElements만 (Pageable/Sort 없이)
+    COLUMNAR  //row 대신 컬럼별 배열 + 팀 이름 사전. 큰 페이지에서 필드 이름 반복이 빠진다.
+}
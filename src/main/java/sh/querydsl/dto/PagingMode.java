@@ -0,0 +1,9 @@
+package sh.querydsl.dto;
+
+//v2, v3 페이징 API의 mode 파라미터. (예: /v2/members?mode=SLICE)
+public enum PagingMode {
+    PAGE,       //정확한 count 쿼리 (기본)
+    SLICE,      //count 없이 hasNext만
+    ESTIMATE,   //추정 total
+    CONCURRENT  //정확한 count를 content 쿼리와 동시에
+}
@@ -0,0 +1,15 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+@Getter
+public class ReconcileResultDto {
+
+    private final int checked;
+    private final int repaired;
+
+    public ReconcileResultDto(int checked, int repaired) {
+        this.checked = checked;
+        this.repaired = repaired;
+    }
+}
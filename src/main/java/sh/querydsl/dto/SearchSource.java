@@ -0,0 +1,7 @@
+package sh.querydsl.dto;
+
+//v1~v3 검색을 어디서 읽을지 정하는 source 파라미터. (예: /v2/members?source=SNAPSHOT)
+public enum SearchSource {
+    JPA,      //DB 쿼리 (기본)
+    SNAPSHOT  //메모리 컬럼 스냅샷(MemberSnapshot). 아직 만들어지지 않았거나 꺼져 있으면 JPA
+}
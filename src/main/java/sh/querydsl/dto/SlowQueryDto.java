@@ -0,0 +1,33 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+//threshold를 넘은 SQL 하나 (SlowQueryLog). plan은 EXPLAIN이 끝나면 채운 새 객체로 바뀐다.
+@Getter
+public class SlowQueryDto {
+
+    private final long sequence;
+    private final LocalDateTime capturedAt;
+    private final long elapsedMillis;
+    private final String method; //SQL을 실행한 리포지토리 메서드(없으면 컨트롤러 메서드)
+    private final MemberSearchCondition condition;
+    private final String sql; //값이 채워진 SQL
+    private final String plan; //select가 아니거나 아직 EXPLAIN 전이면 null
+
+    public SlowQueryDto(long sequence, LocalDateTime capturedAt, long elapsedMillis, String method,
+                        MemberSearchCondition condition, String sql, String plan) {
+        this.sequence = sequence;
+        this.capturedAt = capturedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.method = method;
+        this.condition = condition;
+        this.sql = sql;
+        this.plan = plan;
+    }
+
+    public SlowQueryDto withPlan(String plan) {
+        return new SlowQueryDto(sequence, capturedAt, elapsedMillis, method, condition, sql, plan);
+    }
+}
@@ -0,0 +1,44 @@
+package sh.querydsl.dto;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+@Getter
+public class SqlShapeStatsDto {
+
+    private final String shape;
+    private final long calls;
+    private final Latency execution;
+    private final Latency fetch;
+
+    public SqlShapeStatsDto(String shape, Histogram execution, Histogram fetch) {
+        this.shape = shape;
+        this.calls = execution.getTotalCount();
+        this.execution = new Latency(execution);
+        this.fetch = new Latency(fetch);
+    }
+
+    //정렬용: 이 모양에 쓴 전체 시간(실행 + fetch)
+    public long getTotalMicros() {
+        return execution.totalMicros + fetch.totalMicros;
+    }
+
+    //단위는 모두 마이크로초
+    @Getter
+    public static class Latency {
+
+        private final long count;
+        private final long p50;
+        private final long p99;
+        private final long max;
+        private final long totalMicros;
+
+        private Latency(Histogram histogram) {
+            this.count = histogram.getTotalCount();
+            this.p50 = histogram.getValueAtPercentile(50);
+            this.p99 = histogram.getValueAtPercentile(99);
+            this.max = histogram.getMaxValue();
+            this.totalMicros = (long) (histogram.getMean() * histogram.getTotalCount());
+        }
+    }
+}
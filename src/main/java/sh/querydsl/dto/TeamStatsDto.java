@@ -0,0 +1,25 @@
+package sh.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private Double ageAvg;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    @QueryProjection
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageAvg = memberCount > 0 ? (double) ageSum / memberCount : null;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+}
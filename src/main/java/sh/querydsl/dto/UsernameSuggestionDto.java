@@ -0,0 +1,15 @@
+package sh.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class UsernameSuggestionDto {
+
+    private String username;
+    private long memberCount;
+
+    public UsernameSuggestionDto(String username, long memberCount) {
+        this.username = username;
+        this.memberCount = memberCount;
+    }
+}
@@ -1,17 +1,25 @@
 package sh.querydsl.entity;
 
 import lombok.*;
+import sh.querydsl.cache.DataVersion;
 
 import javax.persistence.*;
 
+//IndexAdvisor(/sql/index-advice)가 검색 조건(팀 + 나이 범위, username)에서 full scan을 찾아 제안한 인덱스
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_team_id_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_username", columnList = "username")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
+    //allocationSize만큼 id 블록을 한 번에 받아와서(pooled-lo) insert마다 시퀀스를 조회하지 않는다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -41,5 +49,6 @@ public class Member {
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
+        DataVersion.bump(); //팀별 조건의 count가 바뀐다.
     }
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package sh.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import sh.querydsl.cache.DataVersion;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+//거의 바뀌지 않는 팀은 2차 캐시(ehcache, src/main/resources/ehcache.xml)에 둔다.
+//members 컬렉션은 id 목록만 캐시되어 Member마다 다시 select하게 되므로 캐시하지 않는다.
+//Member.team 프록시를 초기화할 때는 @BatchSize로 여러 팀을 in (...) 한 번에 가져온다. (N+1 방지)
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@BatchSize(size = 100)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -14,16 +25,26 @@ import java.util.List;
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    //persist는 insert(flush)보다 먼저 불리므로 같은 트랜잭션의 검색도 TeamDictionary가 새 팀을 보게 된다.
+    @PrePersist
+    @PreUpdate
+    @PreRemove
+    private void changed() {
+        DataVersion.bumpTeam();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package sh.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+//팀별 회원 수/나이 합계/최소/최대를 미리 집계해둔 테이블.
+//member 변경과 같은 트랜잭션에서 TeamStatsEventListener가 갱신한다. (엔티티로는 읽기만 한다)
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+}
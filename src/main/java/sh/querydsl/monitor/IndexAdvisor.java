@@ -0,0 +1,223 @@
+package sh.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.IndexAdviceDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//SqlWorkloadSampler가 모은 select를 H2 EXPLAIN으로 돌려서 tableScan이 나온 테이블에 인덱스를 제안한다. (비용은 analyze일 때만 EXPLAIN ANALYZE로 잰다)
+//컬럼 순서는 = 조건 먼저, 범위 조건을 뒤에 둔다. 조인으로 붙는 쪽 테이블은 조인 컬럼을 맨 앞에 둔다. (from 쪽은 조인 컬럼으로 찾지 않는다) 이미 같은 컬럼으로 시작하는 인덱스가 있으면 제안하지 않는다.
+//apply는 DDL로 바로 만들고, analyze면 다시 EXPLAIN ANALYZE해서 비용을 비교한다. 계속 쓸 인덱스는 엔티티의 @Table(indexes)에 옮긴다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexAdvisor {
+
+    private static final int MAX_COLUMNS = 3;
+
+    private static final String EXPLAIN = "explain ";
+    private static final String EXPLAIN_ANALYZE = "explain analyze ";
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*\\w+\\.(\\w+)\\.tableScan\\s*\\*/");
+    private static final Pattern SCAN_COUNT = Pattern.compile("/\\*\\s*scanCount:\\s*(\\d+)\\s*\\*/");
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern TABLE_ALIAS = Pattern.compile("(?i)\\b(from|join)\\s+(\\w+)\\s+(\\w+)");
+    private static final Pattern JOIN_ON = Pattern.compile("(\\w+)\\.(\\w+)\\s*=\\s*(\\w+)\\.(\\w+)");
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?i)(\\w+)\\.(\\w+)\\s*(>=|<=|<>|=|>|<|\\blike\\b|\\bin\\b|\\bbetween\\b)");
+    private static final Pattern WHERE = Pattern.compile("(?is)\\bwhere\\b(.*?)(?:\\border\\s+by\\b|\\bgroup\\s+by\\b|\\blimit\\b|$)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlWorkloadSampler sampler;
+
+    //analyze면 샘플 쿼리를 실제로 실행하는 EXPLAIN ANALYZE로 비용(scanCount)까지 잰다. 아니면 계획만 보고 비용은 비워둔다.
+    public List<IndexAdviceDto> advise(boolean analyze) {
+        return proposals(analyze).stream()
+                .map(p -> p.toDto(null))
+                .collect(Collectors.toList());
+    }
+
+    public List<IndexAdviceDto> apply(boolean analyze) {
+        List<IndexAdviceDto> result = new ArrayList<>();
+        for (Proposal proposal : proposals(analyze)) {
+            log.info("apply index advice: {}", proposal.ddl());
+            jdbcTemplate.execute(proposal.ddl());
+            Long after = analyze ? proposal.samples.stream().mapToLong(this::analyzedCost).sum() : null;
+            result.add(proposal.toDto(after));
+        }
+        return result;
+    }
+
+    private List<Proposal> proposals(boolean analyze) {
+        Map<String, List<List<String>>> existing = existingIndexes();
+        Map<String, Proposal> proposals = new LinkedHashMap<>();
+
+        for (SqlWorkloadSampler.Sample sample : sampler.samples()) {
+            List<List<Object>> parameters = sample.getParameters();
+            if (parameters.isEmpty()) {
+                continue;
+            }
+            //tableScan 여부는 가장 최근 값으로 본다.
+            String plan = explain(EXPLAIN, sample.getSql(), parameters.get(parameters.size() - 1));
+            if (plan == null) {
+                continue;
+            }
+            Long cost = analyze ? analyzedCost(sample) : null;
+            Matcher scan = TABLE_SCAN.matcher(plan);
+            while (scan.find()) {
+                String table = scan.group(1).toLowerCase(Locale.ROOT);
+                List<String> columns = candidateColumns(sample.getSql(), table);
+                if (columns.isEmpty() || covered(existing.get(table), columns)) {
+                    continue;
+                }
+                proposals.computeIfAbsent(table + columns, k -> new Proposal(table, columns)).add(sample, cost);
+            }
+        }
+        return new ArrayList<>(proposals.values());
+    }
+
+    //실행하지 않고 계획만 본다. (SlowQueryLog: 이미 느렸던 쿼리를 한 번 더 돌리지 않도록)
+    public String plan(String sql) {
+        return explain(EXPLAIN, sql, List.of());
+    }
+
+    //남아있는 바인딩 값마다 한 번씩 실행한 scanCount 합
+    private long analyzedCost(SqlWorkloadSampler.Sample sample) {
+        return sample.getParameters().stream()
+                .mapToLong(parameters -> cost(explain(EXPLAIN_ANALYZE, sample.getSql(), parameters)))
+                .sum();
+    }
+
+    private String explain(String command, String sql, List<Object> parameters) {
+        try {
+            return String.join("\n", jdbcTemplate.queryForList(
+                    command + LEADING_COMMENT.matcher(sql).replaceFirst(""), String.class, parameters.toArray()));
+        } catch (RuntimeException e) {
+            //H2가 다시 파싱하거나 바인딩하지 못하는 SQL(날짜 형식 등)은 건너뛴다.
+            log.debug("explain failed: {}", sql, e);
+            return null;
+        }
+    }
+
+    private static long cost(String plan) {
+        if (plan == null) {
+            return 0;
+        }
+        long cost = 0;
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        while (matcher.find()) {
+            cost += Long.parseLong(matcher.group(1));
+        }
+        return cost;
+    }
+
+    //table에 대해 SQL에 나온 조건 컬럼: 조인(on)과 where의 = 조건 -> 범위 조건 순
+    private static List<String> candidateColumns(String sql, String table) {
+        String statement = LEADING_COMMENT.matcher(sql).replaceFirst("").toLowerCase(Locale.ROOT);
+
+        Set<String> aliases = new LinkedHashSet<>();
+        boolean joined = false;
+        Matcher alias = TABLE_ALIAS.matcher(statement);
+        while (alias.find()) {
+            if (alias.group(2).equals(table)) {
+                aliases.add(alias.group(3));
+                joined |= alias.group(1).equals("join");
+            }
+        }
+
+        Set<String> equality = new LinkedHashSet<>();
+        Set<String> range = new LinkedHashSet<>();
+
+        Matcher join = JOIN_ON.matcher(statement);
+        while (joined && join.find()) {
+            if (aliases.contains(join.group(1)) && !aliases.contains(join.group(3))) {
+                equality.add(join.group(2));
+            } else if (aliases.contains(join.group(3)) && !aliases.contains(join.group(1))) {
+                equality.add(join.group(4));
+            }
+        }
+
+        Matcher where = WHERE.matcher(statement);
+        if (where.find()) {
+            Matcher predicate = PREDICATE.matcher(where.group(1));
+            while (predicate.find()) {
+                if (!aliases.contains(predicate.group(1))) {
+                    continue;
+                }
+                String op = predicate.group(3);
+                if (op.equals("=") || op.equals("in")) {
+                    equality.add(predicate.group(2));
+                } else {
+                    range.add(predicate.group(2));
+                }
+            }
+        }
+
+        List<String> columns = new ArrayList<>(equality);
+        range.stream().filter(c -> !equality.contains(c)).forEach(columns::add);
+        return columns.size() > MAX_COLUMNS ? columns.subList(0, MAX_COLUMNS) : columns;
+    }
+
+    private static boolean covered(List<List<String>> indexes, List<String> columns) {
+        return indexes != null && indexes.stream()
+                .anyMatch(index -> index.size() >= columns.size() && index.subList(0, columns.size()).equals(columns));
+    }
+
+    //table -> 인덱스별 컬럼 목록 (순서대로)
+    private Map<String, List<List<String>>> existingIndexes() {
+        Map<String, Map<String, List<String>>> byName = new LinkedHashMap<>();
+        jdbcTemplate.query("select table_name, index_name, column_name from information_schema.indexes"
+                        + " where table_schema = schema() order by table_name, index_name, ordinal_position",
+                rs -> {
+                    byName.computeIfAbsent(rs.getString(1).toLowerCase(Locale.ROOT), t -> new LinkedHashMap<>())
+                            .computeIfAbsent(rs.getString(2), i -> new ArrayList<>())
+                            .add(rs.getString(3).toLowerCase(Locale.ROOT));
+                });
+        Map<String, List<List<String>>> result = new LinkedHashMap<>();
+        byName.forEach((table, indexes) -> result.put(table, new ArrayList<>(indexes.values())));
+        return result;
+    }
+
+    private static class Proposal {
+
+        private final String table;
+        private final List<String> columns;
+        private final List<SqlWorkloadSampler.Sample> samples = new ArrayList<>();
+        private Long costBefore;
+
+        private Proposal(String table, List<String> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        private void add(SqlWorkloadSampler.Sample sample, Long cost) {
+            samples.add(sample);
+            if (cost != null) {
+                costBefore = (costBefore != null ? costBefore : 0) + cost;
+            }
+        }
+
+        private String ddl() {
+            return "create index if not exists idx_" + table + "_" + String.join("_", columns)
+                    + " on " + table + " (" + String.join(", ", columns) + ")";
+        }
+
+        private IndexAdviceDto toDto(Long costAfter) {
+            List<String> shapes = samples.stream().map(sample -> SqlShape.normalize(sample.getSql()))
+                    .collect(Collectors.toList());
+            return new IndexAdviceDto(table, columns, ddl(), shapes, costBefore, costAfter);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package sh.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.MemberSearchCondition;
+
+import java.util.Map;
+
+//리포지토리 메서드 하나가 실행한 SQL 수를 세고, 같은 모양의 SQL이 반복되면(N+1) 어느 메서드인지 남긴다.
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositorySqlAspect {
+
+    private final SqlBudgetProperties properties;
+
+    @Around("execution(* sh.querydsl.repository.*Repository*.*(..))")
+    public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+
+        //MemberRepository 프록시 -> MemberRepositoryImpl 처럼 같은 호출이 두 번 잡히는 경우는 한 번만 센다.
+        SqlStatementContext.Scope current = SqlStatementContext.current();
+        if (current != null && current.getName().endsWith("." + joinPoint.getSignature().getName())) {
+            return joinPoint.proceed();
+        }
+
+        try (SqlStatementContext.Scope scope = SqlStatementContext.open(name, condition(joinPoint.getArgs()))) {
+            Object result = joinPoint.proceed();
+            Map<String, Integer> repeated = scope.repeatedShapes(properties.getRepeatThreshold());
+            if (!repeated.isEmpty()) {
+                log.warn("N+1 suspected in {}: {}", name, repeated);
+            } else if (log.isDebugEnabled()) {
+                log.debug("{} executed {} statements", name, scope.getStatements());
+            }
+            return result;
+        }
+    }
+
+    private static MemberSearchCondition condition(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return (MemberSearchCondition) arg;
+            }
+        }
+        return null;
+    }
+}
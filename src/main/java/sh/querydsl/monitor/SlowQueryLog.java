@@ -0,0 +1,215 @@
+package sh.querydsl.monitor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.SlowQueryDto;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+//sql.slow-query.threshold-millis를 넘은 SQL을 값이 채워진 SQL, 실행한 리포지토리 메서드, 검색 조건과 함께 링 버퍼에 남긴다. (/sql/slow-queries)
+//요청 스레드는 버퍼 칸 하나를 set하고 끝난다. 락이 없고, 버퍼가 차면 가장 오래된 것부터 덮어쓴다.
+//EXPLAIN과 파일 쓰기는 스레드 하나가 따로 처리하고, 그 큐가 차면 버린다(dropped). 느린 SQL이 몰려도 캡처 때문에 요청이 기다리지 않는다.
+//countExecutor 스레드에서 센 count 쿼리는 리포지토리 범위 밖이라 method/condition이 비어 있다.
+@Slf4j
+@Component
+public class SlowQueryLog extends JdbcEventListener {
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final Path file;
+    private final double fileSampleRate;
+    private final long fileMaxBytes;
+    private final int fileMaxFiles;
+
+    //IndexAdvisor -> JdbcTemplate -> DataSource는 p6spy가 이 리스너를 모아서 감싸므로 처음 쓸 때 꺼낸다.
+    private final ObjectProvider<IndexAdvisor> indexAdvisor;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReferenceArray<SlowQueryDto> ring;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ThreadPoolExecutor worker;
+    private volatile Thread workerThread;
+
+    private final Counter captured;
+    private final Counter dropped;
+
+    public SlowQueryLog(ObjectProvider<IndexAdvisor> indexAdvisor, ObjectMapper objectMapper, MeterRegistry registry,
+                        @Value("${sql.slow-query.threshold-millis:200}") long thresholdMillis,
+                        @Value("${sql.slow-query.capacity:256}") int capacity,
+                        @Value("${sql.slow-query.explain:true}") boolean explain,
+                        @Value("${sql.slow-query.queue-capacity:100}") int queueCapacity,
+                        @Value("${sql.slow-query.file:}") String file,
+                        @Value("${sql.slow-query.file-sample-rate:1.0}") double fileSampleRate,
+                        @Value("${sql.slow-query.file-max-bytes:10485760}") long fileMaxBytes,
+                        @Value("${sql.slow-query.file-max-files:5}") int fileMaxFiles) {
+        this.indexAdvisor = indexAdvisor;
+        this.objectMapper = objectMapper;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+        this.file = file.isEmpty() ? null : Paths.get(file);
+        this.fileSampleRate = fileSampleRate;
+        this.fileMaxBytes = fileMaxBytes;
+        this.fileMaxFiles = fileMaxFiles;
+
+        //칸 위치를 sequence & mask로 구하도록 2의 거듭제곱으로 올린다.
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-log");
+                    thread.setDaemon(true);
+                    workerThread = thread;
+                    return thread;
+                });
+        this.captured = registry.counter("sql.slow.queries");
+        this.dropped = registry.counter("sql.slow.queries.dropped");
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        //EXPLAIN 자신은 다시 잡지 않는다.
+        if (timeElapsedNanos < thresholdNanos || Thread.currentThread() == workerThread) {
+            return;
+        }
+        SqlStatementContext.Scope scope = SqlStatementContext.current();
+        SlowQueryDto query = new SlowQueryDto(sequence.getAndIncrement(), LocalDateTime.now(),
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                scope != null ? scope.getName() : null,
+                copy(SqlStatementContext.condition()),
+                statementInformation.getSqlWithValues(), null);
+        ring.set(slot(query), query);
+        captured.increment();
+
+        boolean plan = explain && SqlShape.isSelect(statementInformation.getSql());
+        boolean write = file != null && ThreadLocalRandom.current().nextDouble() < fileSampleRate;
+        if (!plan && !write) {
+            return;
+        }
+        try {
+            worker.execute(() -> process(query, plan, write));
+        } catch (RejectedExecutionException rejected) {
+            dropped.increment();
+        }
+    }
+
+    //최근 것부터 limit개
+    public List<SlowQueryDto> recent(int limit) {
+        List<SlowQueryDto> queries = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            SlowQueryDto query = ring.get(i);
+            if (query != null) {
+                queries.add(query);
+            }
+        }
+        return queries.stream()
+                .sorted(Comparator.comparingLong(SlowQueryDto::getSequence).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void process(SlowQueryDto query, boolean plan, boolean write) {
+        SlowQueryDto result = query;
+        if (plan) {
+            result = query.withPlan(indexAdvisor.getObject().plan(query.getSql()));
+            //그 사이 같은 칸이 새 SQL로 덮였으면 버퍼에는 넣지 않는다.
+            ring.compareAndSet(slot(query), query, result);
+        }
+        if (write) {
+            append(result);
+        }
+    }
+
+    //JSON 한 줄씩 쓴다. 파일이 file-max-bytes를 넘으면 file.1, file.2 ... 로 밀고 새 파일에 쓴다.
+    //worker 스레드 하나만 쓰므로 동기화하지 않는다.
+    private void append(SlowQueryDto query) {
+        try {
+            if (Files.exists(file) && Files.size(file) >= fileMaxBytes) {
+                roll();
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, (objectMapper.writeValueAsString(query) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("slow query log write failed: {}", file, e);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (fileMaxFiles <= 1) {
+            Files.delete(file);
+            return;
+        }
+        for (int i = fileMaxFiles - 1; i > 0; i--) {
+            Path source = i == 1 ? file : rolled(i - 1);
+            if (Files.exists(source)) {
+                Files.move(source, rolled(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private int slot(SlowQueryDto query) {
+        return (int) (query.getSequence() & mask);
+    }
+
+    //호출한 쪽이 조건 객체를 다시 쓰더라도 남긴 값이 바뀌지 않도록 복사한다.
+    private static MemberSearchCondition copy(MemberSearchCondition condition) {
+        if (condition == null) {
+            return null;
+        }
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(condition.getUsername());
+        copy.setTeamName(condition.getTeamName());
+        copy.setAgeGoe(condition.getAgeGoe());
+        copy.setAgeLoe(condition.getAgeLoe());
+        return copy;
+    }
+}
@@ -0,0 +1,13 @@
+package sh.querydsl.monitor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//본문을 쓰기 전에 던지므로 ResponseStatusExceptionResolver가 500으로 바꿔서 내려준다.
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,80 @@
+package sh.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+//요청 하나에서 실행된 SQL 수를 엔드포인트별 예산과 비교한다. 넘으면 로그를 남기고, fail-on-exceed면 예외를 던진다.
+//비동기 핸들러(MemberAsyncController)의 SQL은 bulkhead 스레드에서 실행되므로 세지 않는다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE = SqlBudgetInterceptor.class.getName() + ".scope";
+    private static final String CHECKED = SqlBudgetInterceptor.class.getName() + ".checked";
+
+    private final SqlBudgetProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            request.setAttribute(SCOPE, SqlStatementContext.open(
+                    method.getBeanType().getSimpleName() + "." + method.getMethod().getName()));
+        }
+        return true;
+    }
+
+    //@ResponseBody 핸들러는 본문을 쓰기 전에 SqlBudgetResponseAdvice가 먼저 검사한다. (이 시점엔 응답이 이미 커밋되어 있다)
+    //여기서는 본문 없이 끝난 핸들러(void, ModelAndView)만 검사한다.
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        check(request);
+    }
+
+    //요청마다 한 번만 검사한다. 검사 뒤에 실행된 SQL(본문 직렬화 중 지연 로딩 등)은 세지 않는다.
+    void check(HttpServletRequest request) {
+        SqlStatementContext.Scope scope = (SqlStatementContext.Scope) request.getAttribute(SCOPE);
+        if (scope == null || request.getAttribute(CHECKED) != null) {
+            return;
+        }
+        request.setAttribute(CHECKED, Boolean.TRUE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        int budget = properties.budgetFor(pattern);
+        Map<String, Integer> repeated = scope.repeatedShapes(properties.getRepeatThreshold());
+
+        if (scope.getStatements() <= budget && repeated.isEmpty()) {
+            return;
+        }
+        String message = String.format("%s(%s) executed %d statements (budget %d), repeated shapes %s",
+                scope.getName(), pattern, scope.getStatements(), budget, repeated);
+        if (properties.isFailOnExceed()) {
+            throw new SqlBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlStatementContext.Scope scope = (SqlStatementContext.Scope) request.getAttribute(SCOPE);
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    //비동기 요청은 첫 dispatch에서 postHandle/afterCompletion이 불리지 않으므로 여기서 요청 스레드의 범위를 닫는다.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        afterCompletion(request, response, handler, null);
+    }
+}
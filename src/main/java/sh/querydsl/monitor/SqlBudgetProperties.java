@@ -0,0 +1,30 @@
+package sh.querydsl.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sql.budget")
+public class SqlBudgetProperties {
+
+    //엔드포인트별 설정이 없을 때 요청 하나에 허용하는 SQL 수
+    private int defaultMax = 10;
+
+    //URL 패턴(@GetMapping 값) -> 허용 SQL 수
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    //같은 모양의 SQL이 이 횟수 이상 실행되면 N+1로 본다.
+    private int repeatThreshold = 3;
+
+    //true면 예산을 넘거나 N+1이 보이면 예외를 던진다. (테스트용)
+    private boolean failOnExceed = false;
+
+    public int budgetFor(String pattern) {
+        return pattern != null ? endpoints.getOrDefault(pattern, defaultMax) : defaultMax;
+    }
+}
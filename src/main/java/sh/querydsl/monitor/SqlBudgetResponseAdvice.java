@@ -0,0 +1,35 @@
+package sh.querydsl.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+//@ResponseBody 응답은 postHandle 전에 본문이 쓰이고 커밋되므로, 컨버터가 쓰기 직전에 SQL 예산을 검사한다.
+//여기서 던진 SqlBudgetExceededException은 아직 아무것도 쓰지 않은 응답을 500으로 바꾼다.
+@ControllerAdvice
+@RequiredArgsConstructor
+public class SqlBudgetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlBudgetInterceptor sqlBudgetInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest) {
+            sqlBudgetInterceptor.check(((ServletServerHttpRequest) request).getServletRequest());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,85 @@
+package sh.querydsl.monitor;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.SqlShapeStatsDto;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//SQL 모양별로 실행 시간(execute*)과 fetch 시간(ResultSet.next 합)을 HdrHistogram에 마이크로초 단위로 쌓는다.
+//ConcurrentHistogram은 기록할 때 락을 잡지 않으므로 요청 스레드에서 바로 기록한다.
+@Component
+public class SqlLatencyRecorder extends JdbcEventListener {
+
+    //어떤 모양에도 들어가지 못한 SQL (모양 수가 max-shapes를 넘은 뒤)
+    static final String OTHER = "(other)";
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    //ResultSet마다 next()에 걸린 시간. close될 때 fetch 시간으로 기록하고 지운다.
+    private final Map<ResultSetInformation, long[]> fetching = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    public SqlLatencyRecorder(@Value("${sql.stats.max-shapes:500}") int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        stats(statementInformation.getSql()).execution.recordValue(toMicros(timeElapsedNanos));
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        fetching.computeIfAbsent(resultSetInformation, rs -> new long[1])[0] += timeElapsedNanos;
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        long[] elapsed = fetching.remove(resultSetInformation);
+        if (elapsed != null) {
+            stats(resultSetInformation.getStatementInformation().getSql()).fetch.recordValue(toMicros(elapsed[0]));
+        }
+    }
+
+    public List<SqlShapeStatsDto> snapshot() {
+        return shapes.entrySet().stream()
+                .map(e -> new SqlShapeStatsDto(e.getKey(),
+                        e.getValue().execution.copy(), e.getValue().fetch.copy()))
+                .sorted(Comparator.comparingLong(SqlShapeStatsDto::getTotalMicros).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private ShapeStats stats(String sql) {
+        String shape = SqlShape.normalize(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats != null) {
+            return stats;
+        }
+        return shapes.computeIfAbsent(shapes.size() < maxShapes ? shape : OTHER, s -> new ShapeStats());
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static class ShapeStats {
+        //3자리 유효숫자, 범위는 기록되는 값에 맞춰 자동으로 늘어난다.
+        private final ConcurrentHistogram execution = new ConcurrentHistogram(3);
+        private final ConcurrentHistogram fetch = new ConcurrentHistogram(3);
+    }
+}
@@ -0,0 +1,30 @@
+package sh.querydsl.monitor;
+
+import java.util.regex.Pattern;
+
+//실행된 SQL에서 값(문자열/숫자 리터럴, in 목록 길이)을 지워서 같은 모양의 쿼리끼리 묶을 수 있게 한다.
+//use_sql_comments로 붙는 /* JPQL */ 주석은 어느 쿼리인지 알아보기 좋으므로 남긴다.
+public final class SqlShape {
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShape() {
+    }
+
+    public static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    //앞의 /* JPQL */ 주석을 빼고 select로 시작하는지
+    public static boolean isSelect(String sql) {
+        return SELECT.matcher(LEADING_COMMENT.matcher(sql).replaceFirst("")).find();
+    }
+}
@@ -0,0 +1,101 @@
+package sh.querydsl.monitor;
+
+import sh.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//현재 스레드에서 열려 있는 측정 범위(HTTP 요청, 리포지토리 메서드)마다 실행된 SQL 수를 모양별로 센다.
+//범위는 중첩될 수 있고, 하나의 SQL은 열려 있는 모든 범위에 더해진다.
+public final class SqlStatementContext {
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private SqlStatementContext() {
+    }
+
+    public static Scope open(String name) {
+        return open(name, null);
+    }
+
+    //condition: 리포지토리 메서드에 넘어온 검색 조건 (SlowQueryLog가 같이 남긴다)
+    public static Scope open(String name, MemberSearchCondition condition) {
+        Scope scope = new Scope(name, condition);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return SCOPES.get().peek();
+    }
+
+    //안쪽 범위부터 찾은 첫 검색 조건
+    static MemberSearchCondition condition() {
+        for (Scope scope : SCOPES.get()) {
+            if (scope.condition != null) {
+                return scope.condition;
+            }
+        }
+        return null;
+    }
+
+    static void record(String sql) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            return;
+        }
+        String shape = SqlShape.normalize(sql);
+        for (Scope scope : scopes) {
+            scope.record(shape);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final MemberSearchCondition condition;
+        private final Map<String, Integer> shapes = new LinkedHashMap<>();
+        private int statements;
+
+        private Scope(String name, MemberSearchCondition condition) {
+            this.name = name;
+            this.condition = condition;
+        }
+
+        private void record(String shape) {
+            statements++;
+            shapes.merge(shape, 1, Integer::sum);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        //같은 모양이 threshold번 이상 실행된 SQL (N+1 의심)
+        public Map<String, Integer> repeatedShapes(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapes.forEach((shape, count) -> {
+                if (count >= threshold) {
+                    repeated.put(shape, count);
+                }
+            });
+            return repeated.isEmpty() ? Collections.emptyMap() : repeated;
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            scopes.remove(this);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package sh.querydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+//p6spy가 감싼 DataSource에서 실행(execute/executeQuery/executeUpdate/executeBatch)이 끝날 때마다 호출된다.
+//JdbcEventListener 빈은 p6spy-spring-boot-starter가 알아서 등록한다.
+@Component
+public class SqlStatementCounter extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStatementContext.record(statementInformation.getSql());
+    }
+}
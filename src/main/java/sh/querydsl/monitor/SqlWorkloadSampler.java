@@ -0,0 +1,108 @@
+package sh.querydsl.monitor;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//실제로 실행된 select를 모양별로 하나씩, 값을 채우지 않은(?) SQL로 남긴다. (IndexAdvisor가 EXPLAIN에 쓴다)
+//바인딩 값은 모양마다 최근 values-per-shape개만 두고 오래된 것부터 버린다. 값이 채워진 SQL은 들고 있지 않는다.
+//PreparedStatementInformation.getParameterValues()는 p6spy 공개 API가 아니므로 setXxx 콜백에서 직접 모은다.
+@Component
+public class SqlWorkloadSampler extends JdbcEventListener {
+
+    private final Map<String, Sample> samples = new ConcurrentHashMap<>();
+    //statement마다 지금 바인딩된 값 (index 순서). JDBC처럼 다음 실행까지 값이 유지되고, statement가 버려지면 같이 사라진다.
+    private final Map<PreparedStatementInformation, Map<Integer, Object>> bound =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private final int maxShapes;
+    private final int valuesPerShape;
+
+    public SqlWorkloadSampler(@Value("${sql.stats.max-shapes:500}") int maxShapes,
+                              @Value("${sql.stats.values-per-shape:3}") int valuesPerShape) {
+        this.maxShapes = maxShapes;
+        this.valuesPerShape = Math.max(1, valuesPerShape);
+    }
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex,
+                                            Object value, SQLException e) {
+        if (e != null || !SqlShape.isSelect(statementInformation.getSql())) {
+            return;
+        }
+        synchronized (bound) {
+            bound.computeIfAbsent(statementInformation, s -> new TreeMap<>()).put(parameterIndex, value);
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (e != null || !SqlShape.isSelect(sql)) {
+            return;
+        }
+        String shape = SqlShape.normalize(sql);
+        Sample sample = samples.get(shape);
+        if (sample == null) {
+            if (samples.size() >= maxShapes) {
+                return;
+            }
+            sample = samples.computeIfAbsent(shape, s -> new Sample(sql, valuesPerShape));
+        }
+        sample.add(parameters(statementInformation));
+    }
+
+    public List<Sample> samples() {
+        return new ArrayList<>(samples.values());
+    }
+
+    //? 순서대로의 바인딩 값. Statement(값이 SQL에 들어있는 경우)면 빈 목록
+    private List<Object> parameters(StatementInformation statementInformation) {
+        synchronized (bound) {
+            Map<Integer, Object> values = bound.get(statementInformation);
+            return values != null ? new ArrayList<>(values.values()) : List.of();
+        }
+    }
+
+    //모양 하나: ?가 남아있는 SQL과 최근 바인딩 값 몇 벌
+    public static final class Sample {
+
+        private final String sql;
+        private final int capacity;
+        private final Deque<List<Object>> parameters;
+
+        private Sample(String sql, int capacity) {
+            this.sql = sql;
+            this.capacity = capacity;
+            this.parameters = new ArrayDeque<>(capacity);
+        }
+
+        private synchronized void add(List<Object> values) {
+            if (parameters.size() == capacity) {
+                parameters.removeFirst();
+            }
+            parameters.addLast(values);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        //오래된 것부터
+        public synchronized List<List<Object>> getParameters() {
+            return new ArrayList<>(parameters);
+        }
+    }
+}
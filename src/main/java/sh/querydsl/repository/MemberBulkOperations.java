@@ -0,0 +1,327 @@
+package sh.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.BulkOperation;
+import sh.querydsl.dto.MemberBulkJobDto;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.entity.Member;
+import sh.querydsl.snapshot.MemberChangeFeed;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.util.StringUtils.hasText;
+import static sh.querydsl.entity.QMember.member;
+import static sh.querydsl.entity.QTeam.team;
+
+//queryFactory.update(member)...execute() 한 번으로 큰 테이블을 바꾸면 그동안 락을 오래 잡는다.
+//대상 member.id 범위를 chunkSize씩 나눠서 chunk마다 트랜잭션을 커밋하고, 여러 chunk를 동시에(parallelism) 처리한다.
+//bulk 연산은 엔티티 이벤트를 거치지 않으므로 chunk마다 같은 트랜잭션에서 대상 회원이 있던 팀의 team_stats를 다시 세고,
+//끝나면 메모리 스냅샷에 전체를 다시 읽으라고 알린다.
+//(DataVersion은 StatementInspector가 올린다)
+@Slf4j
+@Component
+public class MemberBulkOperations {
+
+    //완료된 작업은 최근 것만 남긴다.
+    private static final int MAX_JOBS = 100;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final TeamStatsRepository teamStatsRepository;
+    private final MemberChangeFeed changeFeed;
+    private final TaskExecutor executor;
+    private final int chunkSize;
+    private final long throttleMillis;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final NavigableMap<Long, Job> jobs = new ConcurrentSkipListMap<>();
+
+    public MemberBulkOperations(EntityManager em, PlatformTransactionManager transactionManager,
+                                TeamStatsRepository teamStatsRepository,
+                                MemberChangeFeed changeFeed,
+                                @Qualifier("memberBulkExecutor") TaskExecutor executor,
+                                @Value("${member.bulk-job.chunk-size:10000}") int chunkSize,
+                                @Value("${member.bulk-job.throttle-millis:0}") long throttleMillis) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.teamStatsRepository = teamStatsRepository;
+        this.changeFeed = changeFeed;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+    }
+
+    //memberBulkExecutor 스레드에서 실행하고 바로 돌아온다. 진행 상황은 find(id)로 본다.
+    public MemberBulkJobDto submit(MemberBulkJobRequest request) {
+        Job job = plan(request);
+        int workers = Math.max(1, Math.min(request.getParallelism(), job.totalChunks));
+        job.workers.set(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(() -> work(job));
+            } catch (TaskRejectedException e) {
+                //띄우지 못한 worker 몫은 이미 떠 있는 worker가 이어서 처리한다.
+                if (i == 0) {
+                    job.fail(e);
+                    throw e;
+                }
+                if (job.workers.addAndGet(i - workers) == 0) {
+                    finish(job);
+                }
+                break;
+            }
+        }
+        return job.toDto();
+    }
+
+    //현재 스레드에서 실행한다. 트랜잭션 안에서 부르면 chunk마다 커밋하지 않고 그 트랜잭션에 참여하며,
+    //영속성 컨텍스트에 남아있던 대상 Member는 chunk가 끝날 때마다 떼어내서 다음 조회 때 DB 값을 다시 읽게 한다.
+    public MemberBulkJobDto execute(MemberBulkJobRequest request) {
+        Job job = plan(request);
+        job.workers.set(1);
+        work(job);
+        return job.toDto();
+    }
+
+    public Optional<MemberBulkJobDto> find(long id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDto);
+    }
+
+    public List<MemberBulkJobDto> findAll() {
+        List<MemberBulkJobDto> result = new ArrayList<>();
+        jobs.descendingMap().values().forEach(job -> result.add(job.toDto()));
+        return result;
+    }
+
+    private Job plan(MemberBulkJobRequest request) {
+        if (request.getOperation() == null) {
+            throw new IllegalArgumentException("operation은 필수입니다.");
+        }
+        if (request.getOperation() == BulkOperation.SET_USERNAME && !hasText(request.getUsername())) {
+            throw new IllegalArgumentException("SET_USERNAME에는 username이 필요합니다.");
+        }
+        int size = request.getChunkSize() != null ? request.getChunkSize() : chunkSize;
+        if (size < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다: " + size);
+        }
+
+        //bulk 쿼리는 영속성 컨텍스트를 거치지 않으므로 아직 flush되지 않은 변경을 먼저 DB에 반영한다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+
+        Predicate predicate = predicate(request.getCondition());
+        Tuple range = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(predicate)
+                .fetchOne();
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        Long maxId = range != null ? range.get(member.id.max()) : null;
+        int totalChunks = minId == null ? 0 : (int) ((maxId - minId) / size + 1);
+
+        Job job = new Job(sequence.incrementAndGet(), request, predicate, minId == null ? 0 : minId, size, totalChunks);
+        jobs.put(job.id, job);
+        while (jobs.size() > MAX_JOBS) {
+            Map.Entry<Long, Job> oldest = jobs.firstEntry();
+            if (oldest == null || oldest.getValue().status == MemberBulkJobDto.Status.RUNNING) {
+                break;
+            }
+            jobs.remove(oldest.getKey());
+        }
+        return job;
+    }
+
+    private void work(Job job) {
+        int chunk;
+        while (job.status == MemberBulkJobDto.Status.RUNNING && (chunk = job.nextChunk.getAndIncrement()) < job.totalChunks) {
+            long from = job.minId + (long) chunk * job.chunkSize;
+            long to = from + job.chunkSize;
+            try {
+                Long rows = chunkTransaction.execute(status -> executeChunk(job, from, to));
+                job.affectedRows.addAndGet(rows);
+                job.completedChunks.incrementAndGet();
+                if (throttleMillis > 0) {
+                    Thread.sleep(throttleMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail(e);
+            } catch (RuntimeException e) {
+                log.warn("bulk job {} failed at member.id [{}, {})", job.id, from, to, e);
+                job.fail(e);
+            }
+        }
+        if (job.workers.decrementAndGet() == 0) {
+            finish(job);
+        }
+    }
+
+    private long executeChunk(Job job, long from, long to) {
+        BooleanExpression range = member.id.goe(from).and(member.id.lt(to));
+        //username만 바꾸면 팀 집계는 그대로다.
+        List<Long> teamIds = job.operation == BulkOperation.SET_USERNAME ? List.of() : queryFactory
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(job.predicate, range, member.team.isNotNull())
+                .fetch();
+        long rows;
+        switch (job.operation) {
+            case ADD_AGE:
+                rows = queryFactory
+                        .update(member)
+                        .set(member.age, member.age.add(job.ageDelta))
+                        .where(job.predicate, range)
+                        .execute();
+                break;
+            case SET_USERNAME:
+                rows = queryFactory
+                        .update(member)
+                        .set(member.username, job.username)
+                        .where(job.predicate, range)
+                        .execute();
+                break;
+            default:
+                rows = queryFactory
+                        .delete(member)
+                        .where(job.predicate, range)
+                        .execute();
+        }
+        if (rows > 0) {
+            teamStatsRepository.recount(teamIds);
+        }
+        detachAffected(job.operation, from, to);
+        return rows;
+    }
+
+    //바깥 트랜잭션에 참여한 경우(execute) 그 영속성 컨텍스트에 남아있는 대상 Member는 DB와 달라졌으므로 떼어낸다.
+    //삭제는 Team.members 컬렉션까지 달라지므로 영속성 컨텍스트를 모두 비운다.
+    private void detachAffected(BulkOperation operation, long from, long to) {
+        if (operation == BulkOperation.DELETE) {
+            em.clear();
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                Long id = ((Member) entry.getKey()).getId();
+                if (id != null && id >= from && id < to) {
+                    em.detach(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void finish(Job job) {
+        if (job.affectedRows.get() > 0) {
+            changeFeed.publishReset();
+        }
+        job.complete();
+    }
+
+    //bulk update/delete는 조인을 쓸 수 없으므로 팀 이름은 서브쿼리로 건다.
+    private Predicate predicate(MemberSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (condition == null) {
+            return builder.getValue();
+        }
+        if (hasText(condition.getUsername())) {
+            builder.and(member.username.eq(condition.getUsername()));
+        }
+        if (hasText(condition.getTeamName())) {
+            builder.and(member.team.id.in(JPAExpressions
+                    .select(team.id)
+                    .from(team)
+                    .where(team.name.eq(condition.getTeamName()))));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+        return builder.getValue();
+    }
+
+    private static class Job {
+
+        private final long id;
+        private final BulkOperation operation;
+        private final Predicate predicate;
+        private final int ageDelta;
+        private final String username;
+        private final long minId;
+        private final int chunkSize;
+        private final int totalChunks;
+        private final long startedNanos = System.nanoTime();
+
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private final AtomicLong affectedRows = new AtomicLong();
+        private final AtomicInteger workers = new AtomicInteger();
+
+        private volatile MemberBulkJobDto.Status status = MemberBulkJobDto.Status.RUNNING;
+        private volatile String error;
+        private volatile long finishedNanos;
+
+        private Job(long id, MemberBulkJobRequest request, Predicate predicate, long minId, int chunkSize, int totalChunks) {
+            this.id = id;
+            this.operation = request.getOperation();
+            this.predicate = predicate;
+            this.ageDelta = request.getAgeDelta();
+            this.username = request.getUsername();
+            this.minId = minId;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+        }
+
+        private synchronized void fail(Exception e) {
+            if (status == MemberBulkJobDto.Status.RUNNING) {
+                status = MemberBulkJobDto.Status.FAILED;
+                error = e.toString();
+                finishedNanos = System.nanoTime();
+            }
+        }
+
+        private synchronized void complete() {
+            if (status == MemberBulkJobDto.Status.RUNNING) {
+                status = MemberBulkJobDto.Status.COMPLETED;
+                finishedNanos = System.nanoTime();
+            }
+        }
+
+        private MemberBulkJobDto toDto() {
+            long end = status == MemberBulkJobDto.Status.RUNNING ? System.nanoTime() : finishedNanos;
+            return new MemberBulkJobDto(id, operation, status, totalChunks, completedChunks.get(),
+                    affectedRows.get(), (end - startedNanos) / 1_000_000, error);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package sh.querydsl.repository;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import sh.querydsl.entity.Member;
+import sh.querydsl.snapshot.MemberChange;
+import sh.querydsl.snapshot.MemberChangeFeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Member insert/update/delete를 세션(트랜잭션) 단위로 모았다가 커밋에 성공하면 MemberChangeFeed로 내보낸다.
+//롤백된 변경은 버린다. 구독자가 없으면 아무것도 모으지 않는다.
+public class MemberChangeFeedListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final MemberChangeFeed feed;
+    private final Map<SharedSessionContractImplementor, List<MemberChange>> pending = new ConcurrentHashMap<>();
+
+    public MemberChangeFeedListener(MemberChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof Member) || !feed.hasSubscribers()) {
+            return;
+        }
+        Member member = (Member) event.getEntity();
+        add(event.getSession(), MemberChange.insert(member.getId(), member.getUsername(), member.getAge(),
+                TeamStatsEventListener.teamId(member.getTeam())));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) || !feed.hasSubscribers()) {
+            return;
+        }
+        int usernameIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("username");
+        int ageIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("age");
+        int teamIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("team");
+
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        add(event.getSession(), MemberChange.update((Long) event.getId(), (String) state[usernameIndex],
+                (Integer) state[ageIndex], TeamStatsEventListener.teamId(state[teamIndex]),
+                oldState != null ? (String) oldState[usernameIndex] : null));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Member) || !feed.hasSubscribers()) {
+            return;
+        }
+        int usernameIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("username");
+        add(event.getSession(), MemberChange.delete((Long) event.getId(),
+                (String) event.getDeletedState()[usernameIndex]));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(EventSource session, MemberChange change) {
+        List<MemberChange> changes = pending.get(session);
+        if (changes == null) {
+            changes = new ArrayList<>();
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completedSession) -> {
+                List<MemberChange> completed = pending.remove(completedSession);
+                if (success && completed != null) {
+                    feed.publish(completed);
+                }
+            });
+        }
+        changes.add(change);
+    }
+}
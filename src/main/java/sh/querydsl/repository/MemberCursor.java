@@ -0,0 +1,27 @@
+package sh.querydsl.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//클라이언트에게는 불투명한 문자열로 보이도록 마지막 member.id를 base64(url-safe)로 감싼다.
+final class MemberCursor {
+
+    private MemberCursor() {
+    }
+
+    static String encode(Long memberId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(memberId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) { //NumberFormatException도 IllegalArgumentException이다.
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + cursor, e);
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package sh.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQueryFactory;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import sh.querydsl.cache.DataVersion;
+import sh.querydsl.cache.TeamDictionary;
+import sh.querydsl.dto.MemberCreateDto;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
 import sh.querydsl.dto.QMemberTeamDto;
 import sh.querydsl.entity.Member;
 import sh.querydsl.entity.QMember;
+import sh.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.springframework.util.StringUtils.hasText;
 import static sh.querydsl.entity.QMember.member;
@@ -23,49 +38,133 @@ import static sh.querydsl.entity.QTeam.team;
 @Repository
 public class MemberJpaRepository {
 
+    //항상 거짓인 조건 (member.id는 PK라 null이 아니다). 없는 팀 이름으로 검색할 때 쓴다.
+    //in ()은 쓸 수 없고 content/count/cursor 쿼리가 모두 같은 where를 쓰므로 메서드마다 분기하지 않고 조건으로 비운다.
+    private static final BooleanExpression NO_MEMBER = member.id.isNull();
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchShapeCache shapeCache;
+    private final TeamDictionary teamDictionary;
+    private final int exportFetchSize;
+    private final int bulkChunkSize;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberSearchShapeCache shapeCache, TeamDictionary teamDictionary,
+                               @Value("${member.export.fetch-size:500}") int exportFetchSize,
+                               @Value("${member.bulk.chunk-size:1000}") int bulkChunkSize) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.shapeCache = shapeCache;
+        this.teamDictionary = teamDictionary;
+        this.exportFetchSize = exportFetchSize;
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     public void save(Member member) {
         em.persist(member);
+        DataVersion.bump(); //insert는 flush때 나가므로 그 전에 캐시된 count가 쓰이지 않도록 바로 올린다.
+    }
+
+    //id는 시퀀스에서 블록(pooled-lo)으로 받아오고, insert는 hibernate.jdbc.batch_size 단위로 묶여서 나간다.
+    //chunk마다 flush하고 여기서 저장한 회원만 detach해서 영속성 컨텍스트에 엔티티가 계속 쌓이지 않게 한다.
+    //호출한 쪽 트랜잭션에 참여해도 그쪽이 들고 있는 엔티티는 그대로 managed 상태로 남는다. (em.clear()를 쓰지 않는다)
+    @Transactional
+    public int saveAll(List<MemberCreateDto> members) {
+        List<Member> chunk = new ArrayList<>(Math.min(members.size(), bulkChunkSize));
+        for (MemberCreateDto request : members) {
+            Member member = new Member(request.getUsername(), request.getAge());
+            if (request.getTeamId() != null) {
+                //changeTeam은 team.members 컬렉션을 초기화(select)하므로 대량 저장에서는 FK만 채운다.
+                member.setTeam(em.getReference(Team.class, request.getTeamId()));
+            }
+            em.persist(member);
+            chunk.add(member);
+
+            if (chunk.size() == bulkChunkSize) {
+                flushAndDetach(chunk);
+            }
+        }
+        flushAndDetach(chunk);
+        DataVersion.bump();
+        return members.size();
+    }
+
+    private void flushAndDetach(List<Member> chunk) {
+        em.flush();
+        chunk.forEach(em::detach);
+        chunk.clear();
     }
 
+    //조회 메서드는 readOnly 트랜잭션으로 실행한다. 새로 시작하는 트랜잭션이면 스프링이 세션을 FlushMode.MANUAL,
+    //defaultReadOnly로 바꾸고 커넥션도 readOnly로 잡아서, 조회 전 flush와 dirty checking용 스냅샷이 생기지 않는다.
+    //이미 쓰기 트랜잭션 안에서 불리면 그 트랜잭션에 참여하므로 아직 flush되지 않은 변경도 그대로 조회된다.
+    @Transactional(readOnly = true)
     public Optional<Member> findByID(Long id) {
         Member findMember = em.find(Member.class,id);
         return Optional.ofNullable(findMember);
     }
 
+    //readOnly 트랜잭션으로 시작했을 때만 READ_ONLY 힌트로 새로 로딩되는 엔티티의 스냅샷을 만들지 않는다.
+    //호출한 쪽의 쓰기 트랜잭션에 참여하면 힌트를 걸지 않으므로 돌려준 엔티티를 바꾸면 그대로 update된다.
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
         return em.createQuery("select m from Member m",Member.class)
+                .setHint(QueryHints.READ_ONLY, readOnly())
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
         return queryFactory
                 .selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, readOnly())
                 .fetch();
     }
 
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username =: username",Member.class)
                 .setParameter("username",username)
+                .setHint(QueryHints.READ_ONLY, readOnly())
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername_Querydsl(String username) {
 
         return queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
+                .setHint(QueryHints.READ_ONLY, readOnly())
                 .fetch();
     }
 
+    //대량의 엔티티를 읽기만 할 때: StatelessSession은 영속성 컨텍스트(1차 캐시, 스냅샷, flush)가 없어서
+    //consumer에 넘긴 Member는 바로 GC 대상이 된다. 대신 지연 로딩이 안 되므로 team은 id만 쓸 수 있다.
+    //스프링 트랜잭션과 별개의 커넥션을 쓰므로 커밋된 데이터만 보인다.
+    public void readAll(MemberSearchCondition condition, Consumer<Member> consumer) {
+        BooleanExpression teamIdIn = teamIdIn(condition.getTeamName());
+        StatelessSession session = em.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession();
+        try (CloseableIterator<Member> iterator = new HibernateQueryFactory(session)
+                .selectFrom(member)
+                .where(usernameEq(condition.getUsername()),
+                        teamIdIn,
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setFetchSize(exportFetchSize)
+                .setReadOnly(true)
+                .iterate()) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -95,30 +194,60 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    //where절 모양별로 렌더링해둔 JPQL에 파라미터만 바인딩해서 실행한다. (searchByBuilder는 매번 새로 조립하는 비교 기준으로 남겨둔다)
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        return shapeCache.search(condition);
+    }
+
+    //search와 같은 조건이지만 List로 모으지 않고 forward-only 커서(ScrollableResults)로 한 건씩 consumer에 넘긴다.
+    //DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 결과 건수와 상관없이 힙 사용량이 일정하다.
+    //커서가 열려있는 동안 커넥션을 잡고 있어야 하므로 읽기 전용 트랜잭션 안에서 실행한다.
+    //team은 조인하지 않고 팀 이름은 TeamDictionary에서 채운다.
+    @Transactional(readOnly = true)
+    public void export(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        BooleanExpression teamIdIn = teamIdIn(condition.getTeamName());
+        Map<Long, String> teamNames = teamDictionary.teamNames();
+        try (CloseableIterator<MemberTeamDto> iterator = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+                        member.team.id.as("teamId")))
                 .from(member)
-                .leftJoin(member.team,team)
                 .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
+                        teamIdIn,
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate()) {
+            while (iterator.hasNext()) {
+                MemberTeamDto dto = iterator.next();
+                if (dto.getTeamId() != null) {
+                    dto.setTeamName(teamNames.get(dto.getTeamId()));
+                }
+                consumer.accept(dto);
+            }
+        }
+    }
+
+    private static boolean readOnly() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
     }
 
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    //없는 팀 이름이면 NO_MEMBER로 빈 결과를 만든다.
+    private BooleanExpression teamIdIn(String teamName) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+        List<Long> teamIds = teamDictionary.idsOf(teamName);
+        return teamIds.isEmpty() ? NO_MEMBER : member.team.id.in(teamIds);
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -2,6 +2,8 @@ package sh.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import sh.querydsl.dto.CursorPage;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
 
@@ -14,4 +16,14 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,Pageable pageable);
     Page<MemberTeamDto> searchPageUpgrade(MemberSearchCondition condition,Pageable pageable);
+    //searchPageUpgrade와 같지만 count 쿼리를 content 쿼리와 동시에 다른 커넥션에서 실행한다.
+    Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable);
+
+    //count 쿼리 없이 size + 1개를 조회해서 hasNext만 계산한다.
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    //정확한 count 대신 추정치(조건 없음: 테이블 통계, 조건 있음: 상한까지만 센 값)를 total로 쓴다.
+    Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+    //offset 대신 마지막 member.id 다음부터 읽는 keyset 페이징. cursor가 없으면 첫 페이지.
+    CursorPage<MemberTeamDto> searchAfter(MemberSearchCondition condition, String cursor, int size);
 }
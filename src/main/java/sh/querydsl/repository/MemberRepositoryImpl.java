@@ -5,18 +5,36 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sh.querydsl.cache.MemberCountCache;
+import sh.querydsl.cache.TeamDictionary;
+import sh.querydsl.dto.CursorPage;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
 import sh.querydsl.dto.QMemberTeamDto;
 import sh.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.springframework.util.StringUtils.hasText;
 import static sh.querydsl.entity.QMember.member;
@@ -29,15 +47,32 @@ import static sh.querydsl.entity.QTeam.team;
 //QuerydslRepositorySupport를 extends해주면 이것이 제공하는 기능을 사용할 수 있다.
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom{
 
-//    private final JPAQueryFactory queryFactory;
-//
-//    public MemberRepositoryImpl(EntityManager em) {
-//        this.queryFactory = new JPAQueryFactory(em);
-//    } 이 코드들이 아래의 super로 다 대체가 되는 것.
+    //항상 거짓인 조건 (member.id는 PK라 null이 아니다). 없는 팀 이름으로 검색할 때 쓴다.
+    //in ()은 쓸 수 없고 content/count/cursor 쿼리가 모두 같은 where를 쓰므로 메서드마다 분기하지 않고 조건으로 비운다.
+    private static final BooleanExpression NO_MEMBER = member.id.isNull();
+
+    //select부터 시작하는 쿼리(searchPageComplex, searchPageUpgrade, searchAfter)는 queryFactory를 사용한다.
+    private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final TeamDictionary teamDictionary;
+    private final int estimateCountCap;
+
+    //searchPageConcurrent의 count는 요청 스레드의 EntityManager(커넥션)와 별개로 실행한다.
+    private final EntityManagerFactory emf;
+    private final AsyncTaskExecutor countExecutor;
 
     //QuerydslRepositorySupport는 알아서 EntityManager까지 사용할 수 있게 해준다.
-    public MemberRepositoryImpl() {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, TeamDictionary teamDictionary,
+                                @Value("${member.estimate.count-cap:1000}") int estimateCountCap,
+                                EntityManagerFactory emf,
+                                @Qualifier("memberCountExecutor") AsyncTaskExecutor countExecutor) {
         super(Member.class);
+        this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.teamDictionary = teamDictionary;
+        this.estimateCountCap = estimateCountCap;
+        this.emf = emf;
+        this.countExecutor = countExecutor;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
@@ -80,9 +115,9 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
         JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable, jpaQuery);
 
-        query.fetch();
-
+        QueryResults<MemberTeamDto> results = query.fetchResults();
 
+        return new PageImpl<>(results.getResults(), pageable, results.getTotal());
     }
 
     @Override
@@ -126,36 +161,196 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     @Override
     public Page<MemberTeamDto> searchPageUpgrade(MemberSearchCondition condition, Pageable pageable) {
 
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+        List<MemberTeamDto> content = pageContent(condition, pageable.getOffset(), pageable.getPageSize());
+
+        JPAQuery<Member> countQuery = countQuery(queryFactory, condition);
+
+        //같은 조건이면 데이터가 바뀌기 전까지 count 쿼리를 다시 날리지 않는다.
+        return PageableExecutionUtils.getPage(content,pageable, () -> countCache.count(condition, countQuery::fetchCount));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable) {
+
+        //쓰기 트랜잭션 안이면 다른 커넥션에서는 아직 커밋되지 않은 변경이 보이지 않으므로 같은 스레드에서 센다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return searchPageUpgrade(condition, pageable);
+        }
+
+        //content를 가져오는 동안 count는 countExecutor 스레드에서 별도의 읽기 전용 커넥션으로 센다.
+        Future<Long> total = countExecutor.submit(() -> countCache.count(condition, () -> readOnlyCount(condition)));
+        try {
+            List<MemberTeamDto> content = pageContent(condition, pageable.getOffset(), pageable.getPageSize());
+            return PageableExecutionUtils.getPage(content, pageable, () -> join(total));
+        } finally {
+            //count가 필요 없었으면(첫 페이지가 덜 찼거나 마지막 페이지) 아직 큐에 있는 count는 실행되지 않는다.
+            //이미 실행 중인 count는 interrupt하지 않는다. JDBC 호출 중에 interrupt되면 커넥션이 망가질 수 있다.
+            total.cancel(false);
+        }
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+
+        //count 쿼리 없이 한 건을 더 가져와서 다음 페이지가 있는지만 판단한다. (무한 스크롤용)
+        List<MemberTeamDto> content = pageContent(condition, pageable.getOffset(), pageable.getPageSize() + 1);
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
 
-        JPAQuery<Member> countQuery = queryFactory
+        List<MemberTeamDto> content = pageContent(condition, pageable.getOffset(), pageable.getPageSize());
+
+        //조건이 없으면 H2 테이블 통계의 추정 row 수를, 조건이 있으면 현재 위치부터 estimateCountCap개까지만 센 값을 total로 쓴다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> isUnfiltered(condition) ? estimatedMemberCount() : cappedCount(condition, pageable.getOffset()));
+    }
+
+    @Override
+    public CursorPage<MemberTeamDto> searchAfter(MemberSearchCondition condition, String cursor, int size) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+
+        //cursor에는 이전 페이지 마지막 member.id가 들어있다. 그 뒤부터 size + 1개를 가져와서 다음 페이지 존재 여부를 판단한다.
+        Long lastMemberId = MemberCursor.decode(cursor);
+
+        List<MemberTeamDto> content = teamDictionary.fillTeamNames(contentQuery(condition, idGt(lastMemberId))
+                .limit(size + 1)
+                .fetch());
+
+        if (content.size() <= size) {
+            return new CursorPage<>(content, null);
+        }
+
+        List<MemberTeamDto> page = new ArrayList<>(content.subList(0, size));
+        return new CursorPage<>(page, MemberCursor.encode(page.get(size - 1).getMemberId()));
+    }
+
+    //offset 페이징은 깊은 페이지일수록 앞의 row를 읽고 버리므로 깊게 넘기는 화면은 /v4(searchAfter)를 쓴다.
+    //page 번호만으로는 이전 페이지의 마지막 id를 알 수 없어서 여기서 keyset으로 바꾸지 않는다.
+    //searchAfter와 같은 순서가 되도록 id로 정렬한다.
+    private List<MemberTeamDto> pageContent(MemberSearchCondition condition, long offset, int limit) {
+        return teamDictionary.fillTeamNames(contentQuery(condition, null)
+                .offset(offset)
+                .limit(limit)
+                .fetch());
+    }
+
+    private JPAQuery<Member> countQuery(JPAQueryFactory factory, MemberSearchCondition condition) {
+        return factory
                 .select(member)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
+                        teamIdIn(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
+    }
+
+    //트랜잭션 없이 새 EntityManager로 센다. 커넥션은 EntityManager를 닫을 때 풀로 돌아간다. (readOnly도 풀에서 되돌린다)
+    private long readOnlyCount(MemberSearchCondition condition) {
+        EntityManager countEm = emf.createEntityManager();
+        try {
+            Session session = countEm.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.doWork(connection -> connection.setReadOnly(true));
+            return countQuery(new JPAQueryFactory(countEm), condition).fetchCount();
+        } finally {
+            countEm.close();
+        }
+    }
+
+    private static long join(Future<Long> total) {
+        try {
+            return total.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("count 쿼리를 기다리는 중 interrupt 되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
-        return PageableExecutionUtils.getPage(content,pageable, countQuery::fetchCount);
+    //H2 전용: information_schema의 추정 row 수. 테이블을 스캔하지 않는다.
+    private long estimatedMemberCount() {
+        Number estimate = (Number) getEntityManager()
+                .createNativeQuery("select row_count_estimate from information_schema.tables" +
+                        " where table_schema = schema() and table_name = 'MEMBER'")
+                .getSingleResult();
+        return estimate.longValue();
+    }
+
+    //offset 이후로 estimateCountCap개까지만 세고 멈춘다. cap에 닿으면 "최소 이만큼"이라는 의미의 total이 된다.
+    //id를 애플리케이션으로 가져오지 않고 DB에서 count(*)만 받는다. JPQL은 from 절 서브쿼리가 없어서 native로 만든다.
+    private long cappedCount(MemberSearchCondition condition, long offset) {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (hasText(condition.getUsername())) {
+            where.append(" and m.username = :username");
+            parameters.put("username", condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            List<Long> teamIds = teamDictionary.idsOf(condition.getTeamName());
+            if (teamIds.isEmpty()) {
+                return offset;
+            }
+            where.append(" and m.team_id in (:teamIds)");
+            parameters.put("teamIds", teamIds);
+        }
+        if (condition.getAgeGoe() != null) {
+            where.append(" and m.age >= :ageGoe");
+            parameters.put("ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            where.append(" and m.age <= :ageLoe");
+            parameters.put("ageLoe", condition.getAgeLoe());
+        }
+
+        Query query = getEntityManager().createNativeQuery(
+                "select count(*) from (select 1 from member m" + where + " limit :cap offset :offset) capped");
+        parameters.forEach(query::setParameter);
+        query.setParameter("cap", estimateCountCap);
+        query.setParameter("offset", offset);
+        return offset + ((Number) query.getSingleResult()).longValue();
+    }
+
+    private boolean isUnfiltered(MemberSearchCondition condition) {
+        return !hasText(condition.getUsername())
+                && !hasText(condition.getTeamName())
+                && condition.getAgeGoe() == null
+                && condition.getAgeLoe() == null;
+    }
+
+    //team을 조인하지 않고 member.team_id만 읽는다. teamName은 조회 후 TeamDictionary로 채워야 한다.
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition, BooleanExpression seek) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        member.team.id.as("teamId")))
+                .from(member)
+                .where(usernameEq(condition.getUsername()),
+                        teamIdIn(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        seek
+                )
+                .orderBy(member.id.asc());
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -166,6 +361,16 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
         return hasText(teamName) ? team.name.eq(teamName) : null;
     }
 
+    //팀 이름을 TeamDictionary로 team_id 조건으로 바꿔서 team 조인 없이 거른다.
+    //없는 팀 이름이면 NO_MEMBER로 빈 결과를 만든다.
+    private BooleanExpression teamIdIn(String teamName) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+        List<Long> teamIds = teamDictionary.idsOf(teamName);
+        return teamIds.isEmpty() ? NO_MEMBER : member.team.id.in(teamIds);
+    }
+
     private BooleanExpression ageGoe(Integer ageGoe) {
         return ageGoe != null ? member.age.goe(ageGoe) : null;
     }
@@ -173,6 +378,10 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
+
+    private BooleanExpression idGt(Long memberId) {
+        return memberId != null ? member.id.gt(memberId) : null;
+    }
 }
 
 ////MemberRepository에다가 할 것 이기때문에, 이름을 뒤에 Impl을 붙여줘야하는 규칙이있다.
@@ -0,0 +1,172 @@
+package sh.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import sh.querydsl.cache.TeamDictionary;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static sh.querydsl.entity.QMember.member;
+
+//search의 where절은 username/teamName/ageGoe/ageLoe가 있냐 없냐에 따라 16가지 모양밖에 없다.
+//모양(bitmask)별로 Querydsl이 만든 JPQL을 한 번만 렌더링해두고, 요청마다 파라미터만 바인딩해서 실행한다.
+//결과 row(Object[])는 QMemberTeamDto 프로젝션으로 그대로 DTO를 만든다.
+//team은 조인하지 않는다. 팀 이름 조건은 TeamDictionary로 team_id 조건으로 바꾸고, 팀 이름은 조회 후 채운다.
+@Component
+public class MemberSearchShapeCache {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TeamDictionary teamDictionary;
+    private final QMemberTeamDto projection = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            member.team.id.as("teamId"));
+    private final AtomicReferenceArray<Shape> shapes = new AtomicReferenceArray<>(16);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter savedNanos;
+    private final Timer renderTimer;
+
+    public MemberSearchShapeCache(EntityManager em, TeamDictionary teamDictionary, MeterRegistry registry) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.teamDictionary = teamDictionary;
+        this.hits = registry.counter("member.search.shape.cache.requests", "result", "hit");
+        this.misses = registry.counter("member.search.shape.cache.requests", "result", "miss");
+        this.savedNanos = Counter.builder("member.search.shape.render.saved")
+                .description("캐시 hit으로 생략한 Querydsl 조립/JPQL 직렬화 시간(렌더링 당시 측정값 기준)")
+                .baseUnit("nanoseconds")
+                .register(registry);
+        this.renderTimer = registry.timer("member.search.shape.render");
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        int mask = mask(condition);
+
+        List<Long> teamIds = Collections.emptyList();
+        if ((mask & TEAM_NAME) != 0) {
+            teamIds = teamDictionary.idsOf(condition.getTeamName());
+            if (teamIds.isEmpty()) {
+                return new ArrayList<>(); //없는 팀 이름이면 DB에 가지 않는다.
+            }
+        }
+
+        Shape shape = shapes.get(mask);
+        if (shape == null) {
+            misses.increment();
+            shapes.compareAndSet(mask, null, render(mask));
+            shape = shapes.get(mask);
+        } else {
+            hits.increment();
+            savedNanos.increment(shape.renderNanos);
+        }
+
+        //렌더링할 때와 같은 순서(username, teamName, ageGoe, ageLoe)로 ?1, ?2 ... 가 붙어 있다.
+        Query query = em.createQuery(shape.jpql);
+        int position = 1;
+        if ((mask & USERNAME) != 0) {
+            query.setParameter(position++, condition.getUsername());
+        }
+        if ((mask & TEAM_NAME) != 0) {
+            query.setParameter(position++, teamIds);
+        }
+        if ((mask & AGE_GOE) != 0) {
+            query.setParameter(position++, condition.getAgeGoe());
+        }
+        if ((mask & AGE_LOE) != 0) {
+            query.setParameter(position, condition.getAgeLoe());
+        }
+
+        List<?> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance((Object[]) row));
+        }
+        return teamDictionary.fillTeamNames(result);
+    }
+
+    private Shape render(int mask) {
+        long start = System.nanoTime();
+
+        //값은 자리만 잡기 위한 것. 서로 다른 값이어야 Querydsl이 같은 파라미터로 합치지 않는다.
+        String jpql = queryFactory
+                .select(projection)
+                .from(member)
+                .where(usernameEq((mask & USERNAME) != 0 ? "username" : null),
+                        teamIdIn((mask & TEAM_NAME) != 0 ? Arrays.asList(2L, 3L) : null),
+                        ageGoe((mask & AGE_GOE) != 0 ? 0 : null),
+                        ageLoe((mask & AGE_LOE) != 0 ? 1 : null)
+                )
+                .toString();
+
+        long renderNanos = System.nanoTime() - start;
+        renderTimer.record(renderNanos, TimeUnit.NANOSECONDS);
+        return new Shape(jpql, renderNanos);
+    }
+
+    private static int mask(MemberSearchCondition condition) {
+        int mask = 0;
+        if (hasText(condition.getUsername())) {
+            mask |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            mask |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            mask |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            mask |= AGE_LOE;
+        }
+        return mask;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return username != null ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamIdIn(List<Long> teamIds) {
+        return teamIds != null ? member.team.id.in(teamIds) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private static final class Shape {
+        private final String jpql;
+        private final long renderNanos;
+
+        private Shape(String jpql, long renderNanos) {
+            this.jpql = jpql;
+            this.renderNanos = renderNanos;
+        }
+    }
+}
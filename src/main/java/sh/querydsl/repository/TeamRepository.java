@@ -0,0 +1,17 @@
+package sh.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+//findById는 Team 엔티티 2차 캐시를, findByName은 쿼리 캐시를 탄다.
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<Team> findByName(String name);
+}
@@ -0,0 +1,226 @@
+package sh.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Member insert/update(changeTeam, 나이 변경)/delete를 보고 팀별 변화량을 세션(트랜잭션) 단위로 모았다가
+//커밋 직전(마지막 flush 이후, JDBC commit 전)에 팀마다 한 번씩 team_stats에 반영한다.
+//- 새로 만든 팀: 통계 row를 그 팀을 세어서 만든다. (팀 id는 유일하므로 동시에 두 번 만들어지지 않는다)
+//- 들어오기만 한 팀: count/sum을 더하고 min/max를 넓힌다.
+//- 나간 회원이 있는 팀: min/max를 알 수 없으므로 member(team_id)로 그 팀만 다시 센다.
+//통계 row가 없는 팀(JDBC로 넣은 기존 데이터 등)은 여기서 만들지 않고 TeamStatsRepository.reconcile에 맡긴다.
+//동시에 두 트랜잭션이 처음 쓰면서 둘 다 insert하다 PK 충돌로 회원 저장까지 롤백되는 일을 막기 위해서다.
+//queryFactory.update/delete 같은 bulk 연산은 이벤트가 없으므로 같은 트랜잭션에서 TeamStatsRepository.recount를 부른다. (MemberBulkOperations)
+//row는 team_id 순서로 잠가서 여러 팀을 고치는 트랜잭션끼리 교착되지 않게 한다.
+@Slf4j
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String INCREMENT = "update team_stats set member_count = member_count + ?, age_sum = age_sum + ?," +
+            " age_min = case when age_min is null or age_min > ? then ? else age_min end," +
+            " age_max = case when age_max is null or age_max < ? then ? else age_max end" +
+            " where team_id = ?";
+    private static final String LOCK = "select team_id from team_stats where team_id = ? for update";
+    private static final String RECOUNT = "update team_stats set" +
+            " member_count = (select count(*) from member m where m.team_id = ?)," +
+            " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = ?)," +
+            " age_min = (select min(m.age) from member m where m.team_id = ?)," +
+            " age_max = (select max(m.age) from member m where m.team_id = ?)" +
+            " where team_id = ?";
+    private static final String INSERT = "insert into team_stats (team_id, member_count, age_sum, age_min, age_max)" +
+            " select ?, count(*), coalesce(sum(m.age), 0), min(m.age), max(m.age) from member m where m.team_id = ?";
+    private static final String DELETE = "delete from team_stats where team_id = ?";
+
+    private final Map<SharedSessionContractImplementor, Map<Long, TeamDelta>> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Team) {
+            delta(event.getSession(), ((Team) entity).getId()).created = true;
+        } else if (entity instanceof Member) {
+            Member member = (Member) entity;
+            join(event.getSession(), teamId(member.getTeam()), member.getAge());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        int teamIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("team");
+        int ageIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("age");
+
+        Long newTeamId = teamId(event.getState()[teamIndex]);
+        int newAge = (Integer) event.getState()[ageIndex];
+
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            //detached 엔티티 merge 등으로 이전 상태를 모르면 새 팀만 다시 센다. 이전 팀은 reconcile에서 맞춰진다.
+            if (newTeamId != null) {
+                delta(event.getSession(), newTeamId).recount = true;
+            }
+            return;
+        }
+
+        Long oldTeamId = teamId(oldState[teamIndex]);
+        int oldAge = (Integer) oldState[ageIndex];
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        leave(event.getSession(), oldTeamId);
+        join(event.getSession(), newTeamId, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Team) {
+            delta(event.getSession(), ((Team) entity).getId()).deleted = true;
+        } else if (entity instanceof Member) {
+            int teamIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("team");
+            leave(event.getSession(), teamId(event.getDeletedState()[teamIndex]));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void join(EventSource session, Long teamId, int age) {
+        if (teamId == null) {
+            return;
+        }
+        TeamDelta delta = delta(session, teamId);
+        delta.count++;
+        delta.ageSum += age;
+        delta.ageMin = delta.ageMin == null ? age : Math.min(delta.ageMin, age);
+        delta.ageMax = delta.ageMax == null ? age : Math.max(delta.ageMax, age);
+    }
+
+    private void leave(EventSource session, Long teamId) {
+        if (teamId != null) {
+            delta(session, teamId).recount = true;
+        }
+    }
+
+    private TeamDelta delta(EventSource session, Long teamId) {
+        Map<Long, TeamDelta> deltas = pending.get(session);
+        if (deltas == null) {
+            deltas = new TreeMap<>(); //team_id 순서로 잠근다.
+            pending.put(session, deltas);
+            register(session);
+        }
+        return deltas.computeIfAbsent(teamId, id -> new TeamDelta());
+    }
+
+    private void register(EventSource session) {
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+        //롤백이면 apply가 호출되지 않으므로 여기서 버린다.
+        session.getActionQueue().registerProcess(
+                (AfterTransactionCompletionProcess) (success, completedSession) -> pending.remove(completedSession));
+    }
+
+    private void apply(SessionImplementor session) {
+        Map<Long, TeamDelta> deltas = pending.remove(session);
+        if (deltas == null) {
+            return;
+        }
+        session.doWork(connection -> {
+            for (Map.Entry<Long, TeamDelta> entry : deltas.entrySet()) {
+                apply(connection, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private void apply(Connection connection, Long teamId, TeamDelta delta) throws SQLException {
+        if (delta.deleted) {
+            delete(connection, teamId);
+            return;
+        }
+        if (delta.created) {
+            //같은 트랜잭션에서 들어온 회원까지 센다.
+            create(connection, teamId);
+            return;
+        }
+        int updated = delta.recount
+                ? recount(connection, teamId)
+                : execute(connection, INCREMENT, delta.count, delta.ageSum,
+                delta.ageMin, delta.ageMin, delta.ageMax, delta.ageMax, teamId);
+        if (updated == 0) {
+            log.debug("team_stats row for team {} is missing, left to reconcile", teamId);
+        }
+    }
+
+    //row를 먼저 잠그고 나서 센다. 같은 팀을 동시에 다시 세는 트랜잭션은 앞의 커밋을 본 뒤에 센다.
+    //(잠그기 전에 시작한 문장은 그 커밋을 보지 못한다)
+    static int recount(Connection connection, Long teamId) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement(LOCK)) {
+            lock.setLong(1, teamId);
+            lock.executeQuery().close();
+        }
+        return execute(connection, RECOUNT, teamId, teamId, teamId, teamId, teamId);
+    }
+
+    //그 팀을 세어서 통계 row를 만든다.
+    static void create(Connection connection, Long teamId) throws SQLException {
+        execute(connection, INSERT, teamId, teamId);
+    }
+
+    static void delete(Connection connection, Long teamId) throws SQLException {
+        execute(connection, DELETE, teamId);
+    }
+
+    private static int execute(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    //프록시를 초기화하지 않고 team의 id만 꺼낸다.
+    static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static final class TeamDelta {
+        private long count;
+        private long ageSum;
+        private Integer ageMin;
+        private Integer ageMax;
+        private boolean recount;
+        private boolean created;
+        private boolean deleted;
+    }
+}
@@ -0,0 +1,25 @@
+package sh.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sh.querydsl.dto.ReconcileResultDto;
+
+//bulk 연산처럼 이벤트 없이 바뀐 데이터 때문에 생긴 집계 차이를 주기적으로 맞춘다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatsReconciler {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    @Scheduled(initialDelayString = "${team-stats.reconcile.initial-delay:60000}",
+            fixedDelayString = "${team-stats.reconcile.fixed-delay:600000}")
+    public void reconcile() {
+        ReconcileResultDto result = teamStatsRepository.reconcile();
+        if (result.getRepaired() > 0) {
+            log.warn("team stats reconciled: checked={} repaired={}", result.getChecked(), result.getRepaired());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package sh.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.QTeamStatsDto;
+import sh.querydsl.dto.ReconcileResultDto;
+import sh.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static sh.querydsl.entity.QMember.member;
+import static sh.querydsl.entity.QTeam.team;
+import static sh.querydsl.entity.QTeamStats.teamStats;
+
+@Slf4j
+@Repository
+public class TeamStatsRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    //member 테이블을 보지 않고 팀 수만큼의 집계 row만 읽는다.
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.ageMin,
+                        teamStats.ageMax))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    //이벤트를 거치지 않는 bulk update/delete 뒤에 같은 트랜잭션에서 부른다. 바뀐 회원이 있던 팀만 member(team_id)로 다시 센다.
+    //트랜잭션 안에서만 부를 수 있다. (커밋되지 않으면 bulk 변경과 함께 롤백된다)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recount(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        //flush된 변경까지 보고 센다. JDBC로 바로 실행해서 2차 캐시/쿼리 캐시를 건드리지 않는다.
+        em.unwrap(Session.class).doWork(connection -> {
+            for (Long teamId : new TreeSet<>(teamIds)) {
+                TeamStatsEventListener.recount(connection, teamId);
+            }
+        });
+    }
+
+    //전체를 다시 세어서(group by) 집계 테이블과 비교하고, 다른 팀만 고친다.
+    //JDBC로 넣은 데이터(GenerateMember), 통계 row가 없던 팀은 이걸로 맞춘다.
+    //비교는 잠그지 않고 읽은 값으로 하고, 고칠 때는 TeamStatsEventListener와 같이 team_id 순서로 row를 잠근 뒤 다시 센다.
+    //읽은 값으로 덮어쓰면 그 사이에 커밋된 회원 변경(INCREMENT)이 사라진다.
+    @Transactional
+    public ReconcileResultDto reconcile() {
+        List<Tuple> counts = queryFactory
+                .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch();
+
+        //엔티티로 읽지 않는다. (dirty checking으로 UPDATE가 나가지 않게)
+        Map<Long, Tuple> stored = new HashMap<>();
+        for (Tuple stats : queryFactory
+                .select(teamStats.teamId, teamStats.memberCount, teamStats.ageSum, teamStats.ageMin, teamStats.ageMax)
+                .from(teamStats)
+                .fetch()) {
+            stored.put(stats.get(teamStats.teamId), stats);
+        }
+
+        Map<Long, Repair> repairs = new TreeMap<>();
+        for (Tuple count : counts) {
+            Long teamId = count.get(team.id);
+            Tuple stats = stored.remove(teamId);
+            if (stats == null) {
+                repairs.put(teamId, Repair.CREATE);
+            } else if (drifted(count, stats)) {
+                log.warn("team stats drift {} -> {}", stats, count);
+                repairs.put(teamId, Repair.RECOUNT);
+            }
+        }
+        //삭제된 팀의 집계 row
+        for (Long teamId : stored.keySet()) {
+            repairs.put(teamId, Repair.DELETE);
+        }
+
+        em.unwrap(Session.class).doWork(connection -> {
+            for (Map.Entry<Long, Repair> repair : repairs.entrySet()) {
+                switch (repair.getValue()) {
+                    case CREATE:
+                        TeamStatsEventListener.create(connection, repair.getKey());
+                        break;
+                    case RECOUNT:
+                        TeamStatsEventListener.recount(connection, repair.getKey());
+                        break;
+                    default:
+                        TeamStatsEventListener.delete(connection, repair.getKey());
+                }
+            }
+        });
+        return new ReconcileResultDto(counts.size(), repairs.size());
+    }
+
+    private static boolean drifted(Tuple count, Tuple stats) {
+        Number ageSum = count.get(2, Number.class); //sum(int)은 Long으로 온다.
+        return !Objects.equals(count.get(member.count()), stats.get(teamStats.memberCount))
+                || (ageSum != null ? ageSum.longValue() : 0) != stats.get(teamStats.ageSum)
+                || !Objects.equals(count.get(member.age.min()), stats.get(teamStats.ageMin))
+                || !Objects.equals(count.get(member.age.max()), stats.get(teamStats.ageMax));
+    }
+
+    private enum Repair {
+        CREATE, RECOUNT, DELETE
+    }
+}
@@ -0,0 +1,64 @@
+package sh.querydsl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PagingMode;
+import sh.querydsl.dto.SearchSource;
+import sh.querydsl.repository.MemberJpaRepository;
+import sh.querydsl.repository.MemberRepository;
+import sh.querydsl.snapshot.MemberSnapshot;
+
+import java.util.List;
+
+//회원 검색(v1~v3)을 어디서(JPA, 스냅샷) 어떤 페이징 방식으로 할지 고른다.
+//MemberController는 요청 스레드에서, MemberAsyncController는 bulkhead 스레드에서 같은 메서드를 부른다.
+@Service
+@RequiredArgsConstructor
+public class MemberSearchService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final MemberSnapshot memberSnapshot;
+    private final MeterRegistry meterRegistry;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition, SearchSource source) {
+        if (source == SearchSource.SNAPSHOT && memberSnapshot.isReady()) {
+            return memberSnapshot.search(condition);
+        }
+        return memberJpaRepository.search(condition);
+    }
+
+    //mode별 응답 시간은 /actuator/metrics/member.search.page?tag=mode:CONCURRENT 처럼 비교한다.
+    //스냅샷은 total을 세는 비용이 따로 없으므로 mode와 상관없이 Page를 돌려준다. (source:SNAPSHOT 태그)
+    public Slice<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable,
+                                           PagingMode mode, SearchSource source) {
+        boolean snapshot = source == SearchSource.SNAPSHOT
+                && memberSnapshot.isReady() && memberSnapshot.supports(pageable.getSort());
+        return Timer.builder("member.search.page")
+                .tag("mode", mode.name())
+                .tag("source", snapshot ? SearchSource.SNAPSHOT.name() : SearchSource.JPA.name())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(() -> {
+                    if (snapshot) {
+                        return memberSnapshot.searchPage(condition, pageable);
+                    }
+                    switch (mode) {
+                        case SLICE:
+                            return memberRepository.searchSlice(condition, pageable);
+                        case ESTIMATE:
+                            return memberRepository.searchPageEstimated(condition, pageable);
+                        case CONCURRENT:
+                            return memberRepository.searchPageConcurrent(condition, pageable);
+                        default:
+                            return memberRepository.searchPageUpgrade(condition, pageable);
+                    }
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package sh.querydsl.snapshot;
+
+//커밋된 회원 하나의 변경. insert/update는 변경 후 상태를, delete는 지워진 id를 담는다.
+public final class MemberChange {
+
+    private final long memberId;
+    private final boolean inserted;
+    private final boolean deleted;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+    //변경 전 username. insert거나 이전 상태를 모르면(detached merge) null
+    private final String previousUsername;
+
+    private MemberChange(long memberId, boolean inserted, boolean deleted, String username, int age, Long teamId,
+                         String previousUsername) {
+        this.memberId = memberId;
+        this.inserted = inserted;
+        this.deleted = deleted;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.previousUsername = previousUsername;
+    }
+
+    public static MemberChange insert(long memberId, String username, int age, Long teamId) {
+        return new MemberChange(memberId, true, false, username, age, teamId, null);
+    }
+
+    public static MemberChange update(long memberId, String username, int age, Long teamId, String previousUsername) {
+        return new MemberChange(memberId, false, false, username, age, teamId, previousUsername);
+    }
+
+    public static MemberChange delete(long memberId, String previousUsername) {
+        return new MemberChange(memberId, false, true, null, 0, null, previousUsername);
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public boolean isInserted() {
+        return inserted;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    public String getPreviousUsername() {
+        return previousUsername;
+    }
+}
@@ -0,0 +1,54 @@
+package sh.querydsl.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+//커밋된 회원 변경을 메모리 스냅샷(MemberSnapshot 등)에 알린다.
+//엔티티 변경은 MemberChangeFeedListener가 트랜잭션 커밋 후 publish한다.
+//bulk update/delete, JDBC insert처럼 엔티티를 거치지 않은 변경은 어떤 회원이 바뀌었는지 모르므로 publishReset으로 전체를 다시 읽게 한다.
+@Slf4j
+@Component
+public class MemberChangeFeed {
+
+    public interface Subscriber {
+
+        void onChanges(List<MemberChange> changes);
+
+        void onReset();
+    }
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    //구독자가 없으면 리스너가 변경을 모으지 않는다.
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    //커밋한 스레드에서 바로 호출되므로 구독자는 받아두기만 하고 무거운 일은 따로 한다.
+    public void publish(List<MemberChange> changes) {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onChanges(changes);
+            } catch (RuntimeException e) {
+                log.warn("member change subscriber {} failed", subscriber, e);
+            }
+        }
+    }
+
+    public void publishReset() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onReset();
+            } catch (RuntimeException e) {
+                log.warn("member change subscriber {} failed", subscriber, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package sh.querydsl.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//회원 전체를 컬럼마다 기본형 배열 하나로 들고 있는 읽기 전용 스냅샷. row는 member.id 오름차순이다.
+//username은 사전 인코딩(int 코드)하고, 팀은 id만 두어 이름은 TeamDictionary로 바꾼다.
+//바뀔 때는 새 배열로 새 스냅샷을 만들므로(copy-on-write) 읽는 쪽은 락 없이 참조 하나만 잡고 끝까지 본다.
+public final class MemberColumns {
+
+    //team_id가 null인 회원. 시퀀스는 1부터라 0인 팀은 없다.
+    static final long NO_TEAM = 0L;
+
+    public enum SortKey {
+        ID, AGE, USERNAME
+    }
+
+    private final int size;
+    private final long[] ids;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final int[] usernameCodes;
+    //code -> username, username -> code. 지워진 회원의 이름도 전체 재빌드 전까지는 남아 있다.
+    private final List<String> usernames;
+    private final Map<String, Integer> usernameCodeMap;
+    //code -> 이름순 순위. username 정렬을 처음 할 때 만든다.
+    private volatile int[] usernameRanks;
+
+    private MemberColumns(int size, long[] ids, int[] ages, long[] teamIds, int[] usernameCodes,
+                          List<String> usernames, Map<String, Integer> usernameCodeMap) {
+        this.size = size;
+        this.ids = ids;
+        this.ages = ages;
+        this.teamIds = teamIds;
+        this.usernameCodes = usernameCodes;
+        this.usernames = usernames;
+        this.usernameCodeMap = usernameCodeMap;
+    }
+
+    public static MemberColumns empty() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder(new ArrayList<>(), new HashMap<>(), 1024);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public String username(int row) {
+        return usernames.get(usernameCodes[row]);
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    //팀이 없으면 null
+    public Long teamId(int row) {
+        return teamIds[row] == NO_TEAM ? null : teamIds[row];
+    }
+
+    public int distinctUsernames() {
+        return usernames.size();
+    }
+
+    //배열과 username 사전이 차지하는 대략적인 heap 크기(byte, compressed oops 기준)
+    public long footprintBytes() {
+        long bytes = 8L * ids.length + 4L * ages.length + 8L * teamIds.length + 4L * usernameCodes.length;
+        for (String username : usernames) {
+            //String 24 + byte[] 16 + 내용(Latin1), ArrayList 칸 4, HashMap.Node 32 + 테이블 칸 4 + Integer 16
+            bytes += 96 + (username != null ? username.length() : 0);
+        }
+        int[] ranks = usernameRanks;
+        return ranks != null ? bytes + 4L * ranks.length : bytes;
+    }
+
+    //teamIdFilter: null이면 팀 조건 없음, 비어 있으면 결과 없음 (없는 팀 이름)
+    //total은 조건에 맞는 전체 row 수, rows는 offset부터 limit개의 row 번호
+    public Result search(String username, long[] teamIdFilter, Integer ageGoe, Integer ageLoe,
+                         long offset, int limit, SortKey sortKey, boolean descending) {
+        int usernameCode = -1;
+        if (username != null) {
+            Integer code = usernameCodeMap.get(username);
+            if (code == null) {
+                return Result.EMPTY;
+            }
+            usernameCode = code;
+        }
+        if (teamIdFilter != null && teamIdFilter.length == 0) {
+            return Result.EMPTY;
+        }
+        int ageMin = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+        int ageMax = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+
+        if (sortKey == SortKey.ID) {
+            return scanInIdOrder(usernameCode, teamIdFilter, ageMin, ageMax, offset, limit, descending);
+        }
+        return scanAndSort(usernameCode, teamIdFilter, ageMin, ageMax, offset, limit, sortKey, descending);
+    }
+
+    //row 자체가 id 순이므로 정렬 없이 한 번 훑으면서 세고, 페이지 구간만 담는다.
+    private Result scanInIdOrder(int usernameCode, long[] teamIdFilter, int ageMin, int ageMax,
+                                 long offset, int limit, boolean descending) {
+        int[] page = new int[Math.min(limit, size)];
+        int count = 0;
+        int total = 0;
+        if (descending) {
+            for (int row = size - 1; row >= 0; row--) {
+                if (matches(row, usernameCode, teamIdFilter, ageMin, ageMax)) {
+                    if (total >= offset && count < page.length) {
+                        page[count++] = row;
+                    }
+                    total++;
+                }
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                if (matches(row, usernameCode, teamIdFilter, ageMin, ageMax)) {
+                    if (total >= offset && count < page.length) {
+                        page[count++] = row;
+                    }
+                    total++;
+                }
+            }
+        }
+        return new Result(total, Arrays.copyOf(page, count));
+    }
+
+    //(정렬 값 << 32 | row) 를 long 하나로 만들어 기본형 배열 정렬 한 번으로 끝낸다. 같은 값이면 id 순
+    private Result scanAndSort(int usernameCode, long[] teamIdFilter, int ageMin, int ageMax,
+                               long offset, int limit, SortKey sortKey, boolean descending) {
+        int[] ranks = sortKey == SortKey.USERNAME ? usernameRanks() : null;
+        long[] keys = new long[Math.min(size, 1024)];
+        int total = 0;
+        for (int row = 0; row < size; row++) {
+            if (matches(row, usernameCode, teamIdFilter, ageMin, ageMax)) {
+                if (total == keys.length) {
+                    keys = Arrays.copyOf(keys, total * 2);
+                }
+                int value = ranks != null ? ranks[usernameCodes[row]] : ages[row];
+                keys[total++] = ((long) value << 32) | row;
+            }
+        }
+        Arrays.sort(keys, 0, total);
+
+        int from = (int) Math.min(offset, total);
+        int count = Math.min(limit, total - from);
+        int[] page = new int[count];
+        for (int i = 0; i < count; i++) {
+            long key = descending ? keys[total - 1 - from - i] : keys[from + i];
+            page[i] = (int) key;
+        }
+        return new Result(total, page);
+    }
+
+    private boolean matches(int row, int usernameCode, long[] teamIdFilter, int ageMin, int ageMax) {
+        if (usernameCode >= 0 && usernameCodes[row] != usernameCode) {
+            return false;
+        }
+        int age = ages[row];
+        if (age < ageMin || age > ageMax) {
+            return false;
+        }
+        if (teamIdFilter == null) {
+            return true;
+        }
+        long teamId = teamIds[row];
+        for (long filter : teamIdFilter) {
+            if (filter == teamId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] usernameRanks() {
+        int[] ranks = usernameRanks;
+        if (ranks != null) {
+            return ranks;
+        }
+        Integer[] codes = new Integer[usernames.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = i;
+        }
+        //null username은 맨 앞(DB의 nulls first와 같다)
+        Arrays.sort(codes, (a, b) -> {
+            String left = usernames.get(a);
+            String right = usernames.get(b);
+            if (left == null || right == null) {
+                return left == null ? (right == null ? 0 : -1) : 1;
+            }
+            return left.compareTo(right);
+        });
+        ranks = new int[codes.length];
+        for (int rank = 0; rank < codes.length; rank++) {
+            ranks[codes[rank]] = rank;
+        }
+        usernameRanks = ranks;
+        return ranks;
+    }
+
+    //변경을 반영한 새 스냅샷. 같은 회원의 변경이 여러 개면 마지막 것만 남긴다.
+    //바뀌지 않은 구간은 System.arraycopy로 그대로 옮긴다.
+    public MemberColumns apply(Collection<MemberChange> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        TreeMap<Long, MemberChange> latest = new TreeMap<>();
+        for (MemberChange change : changes) {
+            latest.put(change.getMemberId(), change);
+        }
+
+        Builder builder = new Builder(new ArrayList<>(usernames), new HashMap<>(usernameCodeMap), size + latest.size());
+        int from = 0;
+        for (MemberChange change : latest.values()) {
+            int position = Arrays.binarySearch(ids, from, size, change.getMemberId());
+            int insertAt = position >= 0 ? position : -position - 1;
+            builder.copy(this, from, insertAt);
+            if (!change.isDeleted()) {
+                builder.add(change.getMemberId(), change.getUsername(), change.getAge(), change.getTeamId());
+            }
+            from = position >= 0 ? position + 1 : insertAt;
+        }
+        builder.copy(this, from, size);
+        return builder.build();
+    }
+
+    public static final class Result {
+
+        static final Result EMPTY = new Result(0, new int[0]);
+
+        private final int total;
+        private final int[] rows;
+
+        private Result(int total, int[] rows) {
+            this.total = total;
+            this.rows = rows;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int[] getRows() {
+            return rows;
+        }
+    }
+
+    //add는 id 오름차순으로 호출해야 한다. (전체 빌드는 order by member.id로 읽는다)
+    public static final class Builder {
+
+        private final List<String> usernames;
+        private final Map<String, Integer> usernameCodeMap;
+        private long[] ids;
+        private int[] ages;
+        private long[] teamIds;
+        private int[] usernameCodes;
+        private int size;
+
+        private Builder(List<String> usernames, Map<String, Integer> usernameCodeMap, int capacity) {
+            this.usernames = usernames;
+            this.usernameCodeMap = usernameCodeMap;
+            this.ids = new long[capacity];
+            this.ages = new int[capacity];
+            this.teamIds = new long[capacity];
+            this.usernameCodes = new int[capacity];
+        }
+
+        public Builder add(long id, String username, int age, Long teamId) {
+            if (size > 0 && ids[size - 1] >= id) {
+                throw new IllegalStateException("member id는 오름차순이어야 합니다. " + ids[size - 1] + " -> " + id);
+            }
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            ages[size] = age;
+            teamIds[size] = teamId != null ? teamId : NO_TEAM;
+            usernameCodes[size] = code(username);
+            size++;
+            return this;
+        }
+
+        //같은 사전을 이어 쓰므로 username 코드를 그대로 옮긴다.
+        private void copy(MemberColumns source, int from, int to) {
+            int length = to - from;
+            if (length <= 0) {
+                return;
+            }
+            ensureCapacity(size + length);
+            System.arraycopy(source.ids, from, ids, size, length);
+            System.arraycopy(source.ages, from, ages, size, length);
+            System.arraycopy(source.teamIds, from, teamIds, size, length);
+            System.arraycopy(source.usernameCodes, from, usernameCodes, size, length);
+            size += length;
+        }
+
+        private int code(String username) {
+            Integer code = usernameCodeMap.get(username);
+            if (code == null) {
+                code = usernames.size();
+                usernames.add(username);
+                usernameCodeMap.put(username, code);
+            }
+            return code;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length + (ids.length >> 1) + 1);
+            ids = Arrays.copyOf(ids, grown);
+            ages = Arrays.copyOf(ages, grown);
+            teamIds = Arrays.copyOf(teamIds, grown);
+            usernameCodes = Arrays.copyOf(usernameCodes, grown);
+        }
+
+        //남는 칸은 잘라서 footprint가 실제 row 수를 따르게 한다.
+        public MemberColumns build() {
+            return new MemberColumns(size, Arrays.copyOf(ids, size), Arrays.copyOf(ages, size),
+                    Arrays.copyOf(teamIds, size), Arrays.copyOf(usernameCodes, size), usernames, usernameCodeMap);
+        }
+    }
+}
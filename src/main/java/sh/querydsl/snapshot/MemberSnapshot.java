@@ -0,0 +1,241 @@
+package sh.querydsl.snapshot;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.cache.TeamDictionary;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberSnapshotStatsDto;
+import sh.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.util.StringUtils.hasText;
+import static sh.querydsl.entity.QMember.member;
+
+//member.snapshot.enabled=true면 회원 전체를 MemberColumns로 메모리에 올려두고 v1~v3의 source=SNAPSHOT 검색을 DB 없이 처리한다.
+//- 처음(그리고 bulk 연산 뒤 reset, full-rebuild-millis마다)은 member 테이블을 id 순으로 한 번 읽어서 만든다.
+//- 그 사이에는 MemberChangeFeed로 받은 커밋된 변경을 refresh-millis마다 모아서 새 스냅샷에 반영한다.
+//커밋 후 반영까지 refresh-millis만큼 늦을 수 있다. 정확히 지금 값이 필요한 요청은 source=JPA(기본)를 쓴다.
+//크기는 /members/snapshot, /actuator/metrics/member.snapshot.bytes 로 본다.
+@Slf4j
+@Component
+public class MemberSnapshot implements MemberChangeFeed.Subscriber {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TeamDictionary teamDictionary;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final long fullRebuildNanos;
+
+    private volatile MemberColumns columns;
+
+    private final Queue<MemberChange> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicBoolean resetRequested = new AtomicBoolean();
+    private final AtomicLong appliedChanges = new AtomicLong();
+    private final AtomicLong fullBuilds = new AtomicLong();
+    private volatile long lastBuildMillis;
+    private volatile long lastFullBuildNanos;
+
+    public MemberSnapshot(EntityManager em, PlatformTransactionManager transactionManager,
+                          TeamDictionary teamDictionary, MemberChangeFeed changeFeed, MeterRegistry registry,
+                          @Value("${member.snapshot.enabled:false}") boolean enabled,
+                          @Value("${member.snapshot.fetch-size:1000}") int fetchSize,
+                          @Value("${member.snapshot.full-rebuild-millis:3600000}") long fullRebuildMillis) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.teamDictionary = teamDictionary;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.fullRebuildNanos = TimeUnit.MILLISECONDS.toNanos(fullRebuildMillis);
+
+        if (enabled) {
+            changeFeed.subscribe(this);
+        }
+        Gauge.builder("member.snapshot.rows", this, s -> s.columns != null ? s.columns.size() : 0)
+                .register(registry);
+        Gauge.builder("member.snapshot.bytes", this, s -> s.columns != null ? s.columns.footprintBytes() : 0)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("member.snapshot.pending", pendingCount, AtomicLong::get)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    //정렬은 하나의 memberId(id), age, username만 지원한다. 그 밖의 정렬이면 호출하는 쪽이 JPA로 보낸다.
+    public boolean supports(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && sortKey(orders.get(0).getProperty()) != null;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberColumns current = columns;
+        MemberColumns.Result result = search(current, condition, 0, Integer.MAX_VALUE, Sort.unsorted());
+        return toDtos(current, result);
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberColumns current = columns;
+        MemberColumns.Result result = pageable.isPaged()
+                ? search(current, condition, pageable.getOffset(), pageable.getPageSize(), pageable.getSort())
+                : search(current, condition, 0, Integer.MAX_VALUE, pageable.getSort());
+        return new PageImpl<>(toDtos(current, result), pageable, result.getTotal());
+    }
+
+    private MemberColumns.Result search(MemberColumns current, MemberSearchCondition condition,
+                                        long offset, int limit, Sort sort) {
+        if (current == null) {
+            throw new IllegalStateException("member snapshot이 아직 준비되지 않았습니다.");
+        }
+        long[] teamIds = null;
+        if (hasText(condition.getTeamName())) {
+            teamIds = teamDictionary.idsOf(condition.getTeamName()).stream().mapToLong(Long::longValue).toArray();
+        }
+        Sort.Order order = sort.isSorted() ? sort.iterator().next() : null;
+        MemberColumns.SortKey sortKey = order != null ? sortKey(order.getProperty()) : MemberColumns.SortKey.ID;
+        if (sortKey == null) {
+            throw new IllegalArgumentException("member snapshot이 지원하지 않는 정렬입니다. " + sort);
+        }
+        return current.search(hasText(condition.getUsername()) ? condition.getUsername() : null, teamIds,
+                condition.getAgeGoe(), condition.getAgeLoe(), offset, limit, sortKey, order != null && order.isDescending());
+    }
+
+    private List<MemberTeamDto> toDtos(MemberColumns current, MemberColumns.Result result) {
+        Map<Long, String> teamNames = teamDictionary.teamNames();
+        int[] rows = result.getRows();
+        List<MemberTeamDto> content = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            Long teamId = current.teamId(row);
+            content.add(new MemberTeamDto(current.id(row), current.username(row), current.age(row),
+                    teamId, teamId != null ? teamNames.get(teamId) : null));
+        }
+        return content;
+    }
+
+    private static MemberColumns.SortKey sortKey(String property) {
+        switch (property) {
+            case "memberId":
+            case "id":
+                return MemberColumns.SortKey.ID;
+            case "age":
+                return MemberColumns.SortKey.AGE;
+            case "username":
+                return MemberColumns.SortKey.USERNAME;
+            default:
+                return null;
+        }
+    }
+
+    //커밋한 스레드에서 불리므로 큐에 넣기만 한다.
+    @Override
+    public void onChanges(List<MemberChange> changes) {
+        pending.addAll(changes);
+        pendingCount.addAndGet(changes.size());
+    }
+
+    @Override
+    public void onReset() {
+        resetRequested.set(true);
+    }
+
+    @Scheduled(initialDelayString = "${member.snapshot.initial-delay:0}",
+            fixedDelayString = "${member.snapshot.refresh-millis:200}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        if (columns == null || resetRequested.getAndSet(false)
+                || System.nanoTime() - lastFullBuildNanos > fullRebuildNanos) {
+            rebuild();
+            return;
+        }
+        List<MemberChange> changes = drain();
+        if (!changes.isEmpty()) {
+            columns = columns.apply(changes);
+            appliedChanges.addAndGet(changes.size());
+        }
+    }
+
+    //여기까지 받은 변경은 모두 커밋된 것이라 이번에 읽는 데이터에 들어 있으므로 버린다.
+    //읽는 도중 커밋된 변경은 다음 refresh에서 한 번 더 반영되지만, 변경 후 상태를 그대로 덮어쓰므로 결과는 같다.
+    public synchronized MemberSnapshotStatsDto rebuild() {
+        drain();
+        long start = System.nanoTime();
+        MemberColumns built = readOnlyTransaction.execute(status -> load());
+        columns = built;
+        lastFullBuildNanos = System.nanoTime();
+        lastBuildMillis = TimeUnit.NANOSECONDS.toMillis(lastFullBuildNanos - start);
+        fullBuilds.incrementAndGet();
+        log.info("member snapshot built: rows={} bytes={} in {}ms", built.size(), built.footprintBytes(), lastBuildMillis);
+        return stats();
+    }
+
+    private MemberColumns load() {
+        MemberColumns.Builder builder = MemberColumns.builder();
+        try (CloseableIterator<Tuple> rows = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate()) {
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                builder.add(row.get(member.id), row.get(member.username), row.get(member.age), row.get(member.team.id));
+            }
+        }
+        return builder.build();
+    }
+
+    private List<MemberChange> drain() {
+        List<MemberChange> changes = new ArrayList<>();
+        MemberChange change;
+        while ((change = pending.poll()) != null) {
+            changes.add(change);
+        }
+        pendingCount.addAndGet(-changes.size());
+        return changes;
+    }
+
+    public MemberSnapshotStatsDto stats() {
+        MemberColumns current = columns;
+        return new MemberSnapshotStatsDto(current != null,
+                current != null ? current.size() : 0,
+                current != null ? current.distinctUsernames() : 0,
+                current != null ? current.footprintBytes() : 0,
+                pendingCount.get(), appliedChanges.get(), fullBuilds.get(), lastBuildMillis);
+    }
+}
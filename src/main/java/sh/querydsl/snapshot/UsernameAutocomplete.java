@@ -0,0 +1,223 @@
+package sh.querydsl.snapshot;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.UsernameSuggestionDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static sh.querydsl.entity.QMember.member;
+
+//username 접두사 자동완성 (/v1/members/autocomplete). DB의 like 'abc%' 대신 메모리의 UsernameTrie에서 찾는다.
+//이름별 회원 수를 빈도로 쓰고, 처음(그리고 reset 뒤, full-rebuild-millis마다)에는 group by username으로 한 번 읽는다.
+//그 사이의 저장/이름 변경/삭제는 MemberChangeFeed로 받아서 커밋 직후 바로 반영한다.
+//이전 이름을 모르는 변경(detached merge)이나 전체 빌드 도중의 변경은 빈도가 조금 어긋날 수 있고 다음 전체 빌드에서 맞춰진다.
+//조회 시간은 /actuator/metrics/member.autocomplete 의 p50/p99로 본다.
+@Slf4j
+@Component
+public class UsernameAutocomplete implements MemberChangeFeed.Subscriber {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int topK;
+    private final int fetchSize;
+    private final long fullRebuildNanos;
+    private final Timer suggestTimer;
+
+    //조회는 read lock만 잡으므로 서로 막지 않는다. 변경 반영과 교체만 write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private UsernameTrie trie;
+    private List<MemberChange> changesDuringRebuild;
+    private final AtomicBoolean resetRequested = new AtomicBoolean();
+    private volatile long lastFullBuildNanos;
+
+    public UsernameAutocomplete(EntityManager em, PlatformTransactionManager transactionManager,
+                                MemberChangeFeed changeFeed, MeterRegistry registry,
+                                @Value("${member.autocomplete.enabled:false}") boolean enabled,
+                                @Value("${member.autocomplete.top-k:10}") int topK,
+                                @Value("${member.autocomplete.fetch-size:1000}") int fetchSize,
+                                @Value("${member.autocomplete.full-rebuild-millis:3600000}") long fullRebuildMillis) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.topK = topK;
+        this.fetchSize = fetchSize;
+        this.fullRebuildNanos = TimeUnit.MILLISECONDS.toNanos(fullRebuildMillis);
+
+        if (enabled) {
+            changeFeed.subscribe(this);
+        }
+        Gauge.builder("member.autocomplete.usernames", this, UsernameAutocomplete::words)
+                .register(registry);
+        this.suggestTimer = Timer.builder("member.autocomplete")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return trie != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    //prefix로 시작하는 username을 회원 수가 많은 순으로 최대 size(<= top-k)개. size가 0 이하면 빈 목록
+    public List<UsernameSuggestionDto> suggest(String prefix, int size) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            if (trie == null) {
+                return Collections.emptyList();
+            }
+            UsernameTrie.Node[] top = trie.top(prefix);
+            int count = Math.max(0, Math.min(size, top.length));
+            List<UsernameSuggestionDto> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                suggestions.add(new UsernameSuggestionDto(top[i].word(), top[i].count()));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+            suggestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int words() {
+        lock.readLock().lock();
+        try {
+            return trie != null ? trie.words() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onChanges(List<MemberChange> changes) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(changes);
+            }
+            if (trie != null) {
+                apply(trie, changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReset() {
+        resetRequested.set(true);
+    }
+
+    private static void apply(UsernameTrie trie, List<MemberChange> changes) {
+        for (MemberChange change : changes) {
+            if (change.isInserted()) {
+                trie.add(change.getUsername(), 1);
+            } else if (change.isDeleted()) {
+                trie.add(change.getPreviousUsername(), -1);
+            } else if (change.getPreviousUsername() != null
+                    && !change.getPreviousUsername().equals(change.getUsername())) {
+                trie.add(change.getPreviousUsername(), -1);
+                trie.add(change.getUsername(), 1);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${member.autocomplete.initial-delay:0}",
+            fixedDelayString = "${member.autocomplete.check-millis:1000}")
+    public void refresh() {
+        if (enabled && (!isReady() || resetRequested.getAndSet(false)
+                || System.nanoTime() - lastFullBuildNanos > fullRebuildNanos)) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuild(() -> readOnlyTransaction.execute(status -> load()));
+    }
+
+    //새 트리는 락 없이 만들고, 그동안 들어온 변경을 다시 적용한 뒤 바꿔 끼운다.
+    synchronized void rebuild(Supplier<UsernameTrie> loader) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        UsernameTrie built;
+        try {
+            built = loader.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            apply(built, changesDuringRebuild);
+            changesDuringRebuild = null;
+            trie = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastFullBuildNanos = System.nanoTime();
+        log.info("username trie built: usernames={} nodes={} in {}ms", built.words(), built.nodes(),
+                TimeUnit.NANOSECONDS.toMillis(lastFullBuildNanos - start));
+    }
+
+    private UsernameTrie load() {
+        UsernameTrie built = new UsernameTrie(topK);
+        NumberExpression<Long> count = member.count();
+        try (CloseableIterator<Tuple> rows = queryFactory
+                .select(member.username, count)
+                .from(member)
+                .where(member.username.isNotNull())
+                .groupBy(member.username)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate()) {
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                built.put(row.get(member.username), row.get(count));
+            }
+        }
+        built.rankAll();
+        return built;
+    }
+}
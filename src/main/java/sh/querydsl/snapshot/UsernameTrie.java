@@ -0,0 +1,220 @@
+package sh.querydsl.snapshot;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+//username 자동완성용 radix tree. 공통 접두사는 edge 문자열 하나로 합치고, 노드마다 그 아래 이름 중 회원 수가 많은 k개(top)를 들고 있다.
+//조회는 prefix를 따라 내려가서 그 노드의 top을 그대로 돌려주므로 트리 크기나 결과 수와 상관없이 prefix 길이만큼만 걷는다.
+//수가 바뀌면 그 이름의 노드부터 root까지 top을 (자기 이름 + 자식들의 top)으로 다시 만든다.
+//스레드 안전하지 않다. UsernameAutocomplete가 락으로 감싼다.
+final class UsernameTrie {
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    //회원 수 내림차순, 같으면 이름순
+    private static final Comparator<Node> RANKING = (a, b) -> {
+        int byCount = Long.compare(b.count, a.count);
+        return byCount != 0 ? byCount : a.word.compareTo(b.word);
+    };
+
+    private final int k;
+    private final Node root = new Node("", null);
+    private int words;
+    private int nodes = 1;
+
+    UsernameTrie(int k) {
+        this.k = k;
+    }
+
+    static final class Node {
+        private String edge;
+        private Node parent;
+        private Node[] children = NO_NODES; //edge 첫 글자 순
+        private String word; //이 노드에서 끝나는 username. 없으면 null
+        private long count;
+        private Node[] top = NO_NODES;
+
+        private Node(String edge, Node parent) {
+            this.edge = edge;
+            this.parent = parent;
+        }
+
+        String word() {
+            return word;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    int words() {
+        return words;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    //prefix로 시작하는 이름 중 상위 k개. 없으면 빈 배열. 돌려준 배열은 고치지 않는다.
+    Node[] top(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = child(node, prefix.charAt(i));
+            if (child == null) {
+                return NO_NODES;
+            }
+            String edge = child.edge;
+            int j = 0;
+            while (j < edge.length() && i < prefix.length()) {
+                if (edge.charAt(j++) != prefix.charAt(i++)) {
+                    return NO_NODES;
+                }
+            }
+            node = child;
+        }
+        return node.top;
+    }
+
+    //username의 회원 수를 delta만큼 바꾼다. 0이 된 이름은 top에서 빠지고 노드는 다음 전체 빌드까지 남는다.
+    void add(String username, long delta) {
+        if (username == null || delta == 0) {
+            return;
+        }
+        Node node = terminal(username);
+        long before = node.count;
+        node.count = Math.max(0, before + delta);
+        if (before == 0 && node.count > 0) {
+            words++;
+        } else if (before > 0 && node.count == 0) {
+            words--;
+        }
+        for (Node n = node; n != null; n = n.parent) {
+            n.top = rank(n);
+        }
+    }
+
+    //전체 빌드용. top을 매번 다시 만들지 않고 수만 넣은 뒤 rankAll로 한 번에 만든다.
+    void put(String username, long count) {
+        if (username == null || count <= 0) {
+            return;
+        }
+        Node node = terminal(username);
+        if (node.count == 0) {
+            words++;
+        }
+        node.count += count;
+    }
+
+    //자식부터 올라가며(후위 순회) 모든 노드의 top을 만든다.
+    void rankAll() {
+        rankAll(root);
+    }
+
+    private void rankAll(Node node) {
+        for (Node child : node.children) {
+            rankAll(child);
+        }
+        node.top = rank(node);
+    }
+
+    private Node terminal(String username) {
+        Node node = root;
+        int i = 0;
+        while (i < username.length()) {
+            Node child = child(node, username.charAt(i));
+            if (child == null) {
+                Node leaf = new Node(username.substring(i), node);
+                insertChild(node, leaf);
+                node = leaf;
+                break;
+            }
+            int common = commonPrefix(child.edge, username, i);
+            if (common < child.edge.length()) {
+                child = split(node, child, common);
+            }
+            node = child;
+            i += common;
+        }
+        node.word = username;
+        return node;
+    }
+
+    //child.edge를 앞 common 글자와 나머지로 나눠서 그 사이에 노드를 하나 끼운다.
+    private Node split(Node parent, Node child, int common) {
+        Node middle = new Node(child.edge.substring(0, common), parent);
+        parent.children[index(parent, middle.edge.charAt(0))] = middle;
+        child.edge = child.edge.substring(common);
+        child.parent = middle;
+        middle.children = new Node[]{child};
+        middle.top = child.top;
+        nodes++;
+        return middle;
+    }
+
+    private void insertChild(Node parent, Node child) {
+        int position = -index(parent, child.edge.charAt(0)) - 1;
+        Node[] children = new Node[parent.children.length + 1];
+        System.arraycopy(parent.children, 0, children, 0, position);
+        children[position] = child;
+        System.arraycopy(parent.children, position, children, position + 1, parent.children.length - position);
+        parent.children = children;
+        nodes++;
+    }
+
+    private static Node child(Node node, char first) {
+        int index = index(node, first);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    //자식 수가 적으므로 edge 첫 글자로 이진 탐색한다. 없으면 -(들어갈 자리) - 1
+    private static int index(Node node, char first) {
+        Node[] children = node.children;
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = children[mid].edge.charAt(0);
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefix(String edge, String username, int offset) {
+        int length = Math.min(edge.length(), username.length() - offset);
+        int i = 0;
+        while (i < length && edge.charAt(i) == username.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    //자식의 top에는 그 자식 아래 상위 k개가 이미 들어 있으므로, 자기 이름과 자식들의 top만 합쳐서 다시 고른다.
+    private Node[] rank(Node node) {
+        int size = node.count > 0 ? 1 : 0;
+        for (Node child : node.children) {
+            size += child.top.length;
+        }
+        if (size == 0) {
+            return NO_NODES;
+        }
+        Node[] candidates = new Node[size];
+        int n = 0;
+        if (node.count > 0) {
+            candidates[n++] = node;
+        }
+        for (Node child : node.children) {
+            System.arraycopy(child.top, 0, candidates, n, child.top.length);
+            n += child.top.length;
+        }
+        Arrays.sort(candidates, RANKING);
+        return size <= k ? candidates : Arrays.copyOf(candidates, k);
+    }
+}
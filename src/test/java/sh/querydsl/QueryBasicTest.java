@@ -23,6 +23,7 @@ import sh.querydsl.entity.Member;
 import sh.querydsl.entity.QMember;
 import sh.querydsl.entity.QTeam;
 import sh.querydsl.entity.Team;
+import sh.querydsl.monitor.SqlPlan;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -374,7 +375,9 @@ public class QueryBasicTest {
         assertThat(loaded).as("패치 조인 미적용").isFalse();
     }
 
+    //fetch join으로 team까지 가져와도 member는 username 인덱스로 찾는다.
     @Test
+    @SqlPlan(uses = "idx_member_username", noTableScan = "member")
     public void fetchJoinUse() throws Exception {
 
         em.flush();
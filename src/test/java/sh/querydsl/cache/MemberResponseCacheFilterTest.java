@@ -0,0 +1,72 @@
+package sh.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MemberResponseCacheFilterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void notModifiedTest() throws Exception {
+        MvcResult first = mockMvc.perform(get("/v2/members").param("ageGoe", "10").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        //파라미터 순서, 기본값 생략, cache buster는 같은 키다.
+        mockMvc.perform(get("/v2/members").param("_", "1").param("size", "5").param("page", "0").param("ageGoe", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        //If-None-Match 없이 오면 저장된 byte[]를 그대로 쓴다.
+        mockMvc.perform(get("/v2/members").param("ageGoe", "10").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+
+        DataVersion.bump();
+
+        MvcResult changed = mockMvc.perform(get("/v2/members").param("ageGoe", "10").param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void otherConditionTest() throws Exception {
+        String etag = mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v1/members").param("teamName", "teamB").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //mode는 대문자로 맞춰서 키를 만든다.
+    @Test
+    public void modeCaseTest() throws Exception {
+        String etag = mockMvc.perform(get("/v3/members").param("mode", "SLICE").param("size", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v3/members").param("mode", "slice").param("size", "3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,99 @@
+package sh.querydsl.cache;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//공유 사전은 커밋된 팀만 담는다. 다른 트랜잭션이 보는 값을 확인해야 하므로 데이터를 커밋하고 지운다.
+@SpringBootTest
+class TeamDictionaryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamDictionary teamDictionary;
+
+    TransactionTemplate tx;
+
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team teamA = new Team("dictTeamA");
+            em.persist(teamA);
+            return teamA.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    //커밋된 팀 변경은 팀 버전을 올리고, 다음 조회에서 사전을 다시 읽는다.
+    @Test
+    public void versionReloadTest() throws Exception {
+        assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictTeamA");
+        long version = DataVersion.currentTeam();
+
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).setName("dictTeamB"));
+
+        assertThat(DataVersion.currentTeam()).isGreaterThan(version);
+        assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictTeamB");
+        assertThat(teamDictionary.idsOf("dictTeamA")).isEmpty();
+        assertThat(teamDictionary.idsOf("dictTeamB")).containsExactly(teamId);
+    }
+
+    //flush 전의 이름 변경도 같은 트랜잭션에서는 보이고, 롤백되면 공유 사전에는 남지 않는다.
+    @Test
+    public void inTransactionTest() throws Exception {
+        assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictTeamA");
+
+        tx.executeWithoutResult(status -> {
+            em.find(Team.class, teamId).setName("dictRenamed");
+
+            assertThat(teamDictionary.idsOf("dictRenamed")).containsExactly(teamId);
+            assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictRenamed");
+            status.setRollbackOnly();
+        });
+
+        assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictTeamA");
+        assertThat(teamDictionary.idsOf("dictRenamed")).isEmpty();
+    }
+
+    //회원만 바뀐 쓰기 트랜잭션에서는 사전을 보려고 flush하지 않는다.
+    @Test
+    public void noFlushForMemberChangesTest() throws Exception {
+        assertThat(teamDictionary.nameOf(teamId)).isEqualTo("dictTeamA");
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10, em.find(Team.class, teamId)));
+
+            assertThat(teamDictionary.idsOf("dictTeamA")).containsExactly(teamId);
+            //insert가 아직 action queue에 남아 있다.
+            assertThat(em.unwrap(Session.class).isDirty()).isTrue();
+            status.setRollbackOnly();
+        });
+    }
+}
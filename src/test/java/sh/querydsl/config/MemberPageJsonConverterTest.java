@@ -0,0 +1,75 @@
+package sh.querydsl.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.dto.PageEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemberPageJsonConverterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    private PageImpl<MemberTeamDto> page(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Long teamId = i == 0 ? null : (long) (i % 2 + 1);
+            content.add(new MemberTeamDto((long) i + 1, "member" + i, i, teamId, teamId == null ? null : "team" + teamId));
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), 1000);
+    }
+
+    private byte[] write(MemberPage page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            MemberPageJsonConverter.write(page, generator);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void compactTest() throws IOException {
+        PageImpl<MemberTeamDto> page = page(3);
+        byte[] compact = write(MemberPage.of(page, PageEnvelope.COMPACT));
+
+        JsonNode json = objectMapper.readTree(compact);
+        assertThat(json.get("content")).hasSize(3);
+        assertThat(json.get("content").get(0).get("teamId").isNull()).isTrue();
+        assertThat(json.get("content").get(1).get("teamName").asText()).isEqualTo("team2");
+        assertThat(json.get("totalElements").asLong()).isEqualTo(1000);
+        assertThat(json.get("hasNext").asBoolean()).isTrue();
+        assertThat(json.has("pageable")).isFalse();
+
+        JsonNode row = json.get("content").get(2);
+        assertThat(row.get("memberId").asLong()).isEqualTo(3L);
+        assertThat(row.get("username").asText()).isEqualTo("member2");
+        assertThat(row.get("age").asInt()).isEqualTo(2);
+
+        assertThat(compact.length).isLessThan(objectMapper.writeValueAsBytes(page).length);
+    }
+
+    @Test
+    public void columnarTest() throws IOException {
+        PageImpl<MemberTeamDto> page = page(100);
+        byte[] columnar = write(MemberPage.of(page, PageEnvelope.COLUMNAR));
+
+        JsonNode json = objectMapper.readTree(columnar);
+        assertThat(json.get("memberId")).hasSize(100);
+        assertThat(json.get("username").get(5).asText()).isEqualTo("member5");
+        assertThat(json.get("teamId").get(0).isNull()).isTrue();
+        assertThat(json.get("teams").get("2").asText()).isEqualTo("team2");
+
+        assertThat(columnar.length).isLessThan(write(MemberPage.of(page, PageEnvelope.COMPACT)).length);
+    }
+}
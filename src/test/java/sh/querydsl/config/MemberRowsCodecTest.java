@@ -0,0 +1,34 @@
+package sh.querydsl.config;
+
+import org.junit.jupiter.api.Test;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemberRowsCodecTest {
+
+    @Test
+    public void roundTripTest() throws IOException {
+        MemberPage page = new MemberPage(Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2", 20, null, null),
+                new MemberTeamDto(3L, null, 30, 2L, "teamB")),
+                1, 3, true, null, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberRowsCodec.write(page, out);
+        MemberPage read = MemberRowsCodec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read.getContent()).isEqualTo(page.getContent());
+        assertThat(read.getPage()).isEqualTo(1);
+        assertThat(read.getSize()).isEqualTo(3);
+        assertThat(read.isHasNext()).isTrue();
+        assertThat(read.getTotalElements()).isNull();
+    }
+}
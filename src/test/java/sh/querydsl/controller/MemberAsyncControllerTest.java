@@ -0,0 +1,117 @@
+package sh.querydsl.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//검색은 bulkhead 스레드에서 실행되어 테스트 트랜잭션의 데이터가 보이지 않으므로 커밋하고 지운다.
+//page bulkhead는 스레드 1개 + 큐 1칸으로 줄여서 두 작업으로 가득 채울 수 있게 한다.
+@SpringBootTest(properties = {"member.bulkhead.page.pool-size=1", "member.bulkhead.page.queue-capacity=1"})
+@AutoConfigureMockMvc
+class MemberAsyncControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("memberPageBulkhead")
+    ThreadPoolTaskExecutor pageBulkhead;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("asyncTeamA");
+            Team teamB = new Team("asyncTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 6; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void sameBodyTest() throws Exception {
+        String sync = mockMvc.perform(get("/v2/members").param("teamName", "asyncTeamA").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MvcResult started = mockMvc.perform(get("/v2/members/async").param("teamName", "asyncTeamA").param("size", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult();
+        String async = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(async).isEqualTo(sync).contains("member2", "member4");
+    }
+
+    @Test
+    public void saturatedBulkheadTest() throws Exception {
+        double rejected = meterRegistry.counter("member.bulkhead.rejected", "name", "memberPageBulkhead").count();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            //스레드 1개가 실행 중, 큐 1칸이 대기 중
+            for (int i = 0; i < 2; i++) {
+                pageBulkhead.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            mockMvc.perform(get("/v2/members/async").param("size", "2"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(meterRegistry.counter("member.bulkhead.rejected", "name", "memberPageBulkhead").count())
+                .isEqualTo(rejected + 1);
+    }
+}
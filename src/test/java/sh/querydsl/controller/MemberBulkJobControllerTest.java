@@ -0,0 +1,185 @@
+package sh.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.BulkOperation;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//작업은 memberBulkExecutor 스레드에서 chunk마다 커밋하므로 데이터를 커밋하고 확인한 뒤 지운다.
+//chunk 사이에 200ms씩 쉬게 해서 실행 중인 작업의 진행 상황을 볼 수 있게 한다.
+@SpringBootTest(properties = "member.bulk-job.throttle-millis=200")
+@AutoConfigureMockMvc
+class MemberBulkJobControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("memberBulkExecutor")
+    ThreadPoolTaskExecutor memberBulkExecutor;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("bulkTeamA");
+            em.persist(teamA);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    //끝난 chunk는 작업이 끝나기 전에도 다른 트랜잭션에서 보인다.
+    @Test
+    public void chunkCommitTest() throws Exception {
+        long id = submit(addAge(2, 1)).get("id").asLong();
+
+        JsonNode running = poll(id, job -> job.get("completedChunks").asInt() >= 1);
+        assertThat(running.get("status").asText()).isEqualTo("RUNNING");
+        assertThat(running.get("totalChunks").asInt()).isEqualTo(5);
+        assertThat(addedRows()).isGreaterThanOrEqualTo(2).isLessThan(10);
+
+        JsonNode done = poll(id, job -> !"RUNNING".equals(job.get("status").asText()));
+        assertThat(done.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(done.get("completedChunks").asInt()).isEqualTo(5);
+        assertThat(done.get("affectedRows").asLong()).isEqualTo(10);
+        assertThat(addedRows()).isEqualTo(10);
+    }
+
+    //worker 2개가 chunk를 나눠 가진다. 쉬는 동안에도 스레드를 잡고 있으므로 두 스레드가 같이 활성화된다.
+    @Test
+    public void parallelTest() throws Exception {
+        long id = submit(addAge(1, 2)).get("id").asLong();
+
+        int maxActive = 0;
+        JsonNode job;
+        do {
+            maxActive = Math.max(maxActive, memberBulkExecutor.getThreadPoolExecutor().getActiveCount());
+            Thread.sleep(10);
+            job = find(id);
+        } while ("RUNNING".equals(job.get("status").asText()));
+
+        assertThat(maxActive).isEqualTo(2);
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("completedChunks").asInt()).isEqualTo(10);
+        assertThat(addedRows()).isEqualTo(10);
+
+        String list = mockMvc.perform(get("/v1/members/bulk-jobs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(objectMapper.readTree(list).get(0).get("id").asLong()).isEqualTo(id);
+    }
+
+    @Test
+    public void notFoundTest() throws Exception {
+        mockMvc.perform(get("/v1/members/bulk-jobs/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    //plan()에서 거르는 잘못된 요청은 작업을 만들지 않고 400
+    @Test
+    public void badRequestTest() throws Exception {
+        badRequest(new MemberBulkJobRequest(null, new MemberSearchCondition()));
+        badRequest(new MemberBulkJobRequest(BulkOperation.SET_USERNAME, new MemberSearchCondition()));
+        badRequest(addAge(0, 1));
+
+        mockMvc.perform(post("/v1/members/bulk-jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operation\":\"UNKNOWN\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void badRequest(MemberBulkJobRequest request) throws Exception {
+        mockMvc.perform(post("/v1/members/bulk-jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MemberBulkJobRequest addAge(int chunkSize, int parallelism) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamA");
+        MemberBulkJobRequest request = new MemberBulkJobRequest(BulkOperation.ADD_AGE, condition);
+        request.setAgeDelta(100);
+        request.setChunkSize(chunkSize);
+        request.setParallelism(parallelism);
+        return request;
+    }
+
+    private JsonNode submit(MemberBulkJobRequest request) throws Exception {
+        String body = mockMvc.perform(post("/v1/members/bulk-jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode find(long id) throws Exception {
+        String body = mockMvc.perform(get("/v1/members/bulk-jobs/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode poll(long id, Predicate<JsonNode> until) throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            JsonNode job = find(id);
+            if (until.test(job)) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("bulk job " + id + " did not reach the expected state");
+    }
+
+    //ageDelta 100이 더해진 회원 수
+    private long addedRows() {
+        return tx.execute(status -> em.createQuery("select count(m) from Member m where m.age >= 100", Long.class)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,176 @@
+package sh.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    //한 줄에 MemberTeamDto 하나, 마지막 줄도 개행으로 끝난다.
+    @Test
+    public void exportTest() throws Exception {
+        String body = mockMvc.perform(get("/v1/members/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).endsWith("\n");
+        assertThat(lines(body)).extracting(n -> n.get("username").asText(), n -> n.get("teamName").asText())
+                .containsExactlyInAnyOrder(
+                        tuple("member1", "teamA"), tuple("member2", "teamA"),
+                        tuple("member3", "teamB"), tuple("member4", "teamB"));
+    }
+
+    @Test
+    public void exportConditionTest() throws Exception {
+        String body = mockMvc.perform(get("/v1/members/export").param("teamName", "teamB").param("ageGoe", "35"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(lines(body))
+                .extracting(n -> n.get("username").asText(), n -> n.get("age").asInt(), n -> n.get("teamName").asText())
+                .containsExactly(tuple("member4", 40, "teamB"));
+    }
+
+    //테스트 설정은 스냅샷이 꺼져 있으므로 source=SNAPSHOT도 JPA로 찾는다.
+    @Test
+    public void snapshotFallbackTest() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "teamB").param("source", "SNAPSHOT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/v2/members").param("teamName", "teamB").param("source", "SNAPSHOT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    //envelope가 있으면 MemberPage로 내려가고, Pageable/Sort 같은 Page 필드는 없다.
+    @Test
+    public void compactEnvelopeTest() throws Exception {
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "5").param("envelope", "COMPACT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].username", containsInAnyOrder("member1", "member2")))
+                .andExpect(jsonPath("$.content[*].teamName", containsInAnyOrder("teamA", "teamA")))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(5))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+    }
+
+    //SLICE는 count가 없으므로 totalElements도 없다. 팀 이름은 teams 사전에 한 번만 나온다.
+    @Test
+    public void columnarEnvelopeTest() throws Exception {
+        mockMvc.perform(get("/v3/members").param("teamName", "teamB").param("size", "1")
+                        .param("mode", "SLICE").param("envelope", "COLUMNAR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username.length()").value(1))
+                .andExpect(jsonPath("$.teamId.length()").value(1))
+                .andExpect(jsonPath("$.teams.*", containsInAnyOrder("teamB")))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.content").doesNotExist());
+    }
+
+    //mode, envelope는 대소문자를 가리지 않는다. (MemberResponseCacheFilter의 키와 같은 규칙)
+    @Test
+    public void lowerCaseEnvelopeTest() throws Exception {
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA").param("mode", "slice").param("envelope", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        mockMvc.perform(get("/v2/members").param("envelope", "NONE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //자동완성이 준비되기 전이라도 잘못된 size는 400
+    @Test
+    public void autocompleteNegativeSizeTest() throws Exception {
+        mockMvc.perform(get("/v1/members/autocomplete").param("prefix", "member").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void cursorTest() throws Exception {
+        String cursor = mockMvc.perform(get("/v4/members").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(cursor).get("nextCursor").asText();
+
+        mockMvc.perform(get("/v4/members").param("size", "3").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("member4"));
+    }
+
+    //잘못된 cursor와 범위를 벗어난 size는 500이 아니라 400
+    @Test
+    public void cursorBadRequestTest() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("cursor", "YWJj")) //"abc"
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "2001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+    }
+
+    //MemberTeamDto는 기본 생성자가 없어서 JsonNode로 읽는다.
+    private List<JsonNode> lines(String body) throws Exception {
+        List<JsonNode> members = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            members.add(objectMapper.readTree(line));
+        }
+        return members;
+    }
+}
@@ -0,0 +1,146 @@
+package sh.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.config.MemberRowsCodec;
+import sh.querydsl.dto.MemberPage;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Accept에 따라 WebConfig에 등록한 컨버터가 고르는지, MemberResponseCacheFilter가 포맷마다 다른 키(ETag)로 저장하는지 본다.
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberResponseFormatTest {
+
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    static final MediaType MEMBER_ROWS = MediaType.parseMediaType(MemberRowsCodec.MEDIA_TYPE);
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    //v1(List)은 Jackson의 Smile/CBOR 컨버터, x-member-rows는 MemberRowsConverter
+    @Test
+    public void listFormatTest() throws Exception {
+        JsonNode cbor = new ObjectMapper(new CBORFactory()).readTree(
+                perform(members("/v1/members"), MediaType.APPLICATION_CBOR).getContentAsByteArray());
+        assertThat(cbor.size()).isEqualTo(2);
+        assertThat(cbor.get(0).get("teamName").asText()).isEqualTo("teamA");
+
+        JsonNode smile = new ObjectMapper(new SmileFactory()).readTree(
+                perform(members("/v1/members"), SMILE).getContentAsByteArray());
+        assertThat(smile.size()).isEqualTo(2);
+
+        MemberPage rows = MemberRowsCodec.read(new ByteArrayInputStream(
+                perform(members("/v1/members"), MEMBER_ROWS).getContentAsByteArray()));
+        assertThat(rows.getContent()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    //v2(Slice)와 envelope(MemberPage)
+    @Test
+    public void pageFormatTest() throws Exception {
+        JsonNode cbor = new ObjectMapper(new CBORFactory()).readTree(
+                perform(members("/v2/members").param("envelope", "COMPACT"), MediaType.APPLICATION_CBOR).getContentAsByteArray());
+        assertThat(cbor.get("content").size()).isEqualTo(2);
+        assertThat(cbor.get("totalElements").asLong()).isEqualTo(2);
+        assertThat(cbor.has("pageable")).isFalse();
+
+        JsonNode smile = new ObjectMapper(new SmileFactory()).readTree(
+                perform(members("/v2/members").param("envelope", "COLUMNAR"), SMILE).getContentAsByteArray());
+        assertThat(smile.get("username").size()).isEqualTo(2);
+
+        //envelope 없이 Page를 x-member-rows로 요청해도 MemberPage 형태로 쓴다.
+        MemberPage rows = MemberRowsCodec.read(new ByteArrayInputStream(
+                perform(members("/v2/members"), MEMBER_ROWS).getContentAsByteArray()));
+        assertThat(rows.getContent()).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(rows.getTotalElements()).isEqualTo(2);
+    }
+
+    //*/*나 Accept가 없으면 JSON
+    @Test
+    public void defaultJsonTest() throws Exception {
+        mockMvc.perform(members("/v1/members").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(members("/v2/members").param("envelope", "COMPACT").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(members("/v2/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    //같은 조건이라도 포맷마다 ETag가 다르고, 다른 포맷의 ETag로는 304가 나지 않는다.
+    @Test
+    public void etagPerFormatTest() throws Exception {
+        Set<String> etags = new HashSet<>();
+        for (MediaType mediaType : new MediaType[]{MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR, MEMBER_ROWS}) {
+            etags.add(perform(members("/v2/members"), mediaType).getHeader(HttpHeaders.ETAG));
+        }
+        assertThat(etags).hasSize(4);
+
+        String json = perform(members("/v2/members"), MediaType.APPLICATION_JSON).getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(members("/v2/members").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+
+        //*/*는 JSON과 같은 키
+        mockMvc.perform(members("/v2/members").accept(MediaType.ALL).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isNotModified());
+    }
+
+    private MockHttpServletRequestBuilder members(String path) {
+        return get(path).param("teamName", "teamA");
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request, MediaType accept) throws Exception {
+        return mockMvc.perform(request.accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,91 @@
+package sh.querydsl.entity;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//2차 캐시는 커밋된 데이터만 읽히므로 @Transactional(롤백) 대신 트랜잭션마다 커밋하고 끝나면 지운다.
+@SpringBootTest
+public class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        teamId = tx.execute(status -> {
+            Team team = new Team("cachedTeam");
+            em.persist(team);
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+    }
+
+    @Test
+    public void findTeamFromSecondLevelCache() throws Exception {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        assertThat(emf.getCache().contains(Team.class, teamId)).isTrue();
+        long hits = teamRegion().getHitCount();
+
+        //트랜잭션(영속성 컨텍스트)이 매번 새로 시작되어도 Team region에서 읽는다.
+        for (int i = 0; i < 3; i++) {
+            Team team = tx.execute(status -> em.find(Team.class, teamId));
+            assertThat(team.getName()).isEqualTo("cachedTeam");
+        }
+
+        //다른 테스트가 같은 region을 읽을 수 있으므로 적어도 3번인지만 본다.
+        assertThat(teamRegion().getHitCount() - hits).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void findTeamByNameFromQueryCache() throws Exception {
+        tx.executeWithoutResult(status -> teamRepository.findByName("cachedTeam"));
+        long queryHits = statistics.getQueryCacheHitCount();
+        long teamHits = teamRegion().getHitCount();
+
+        //id 목록은 쿼리 캐시에서, 엔티티는 Team region에서 읽는다.
+        for (int i = 0; i < 3; i++) {
+            assertThat(tx.execute(status -> teamRepository.findByName("cachedTeam"))).isPresent();
+        }
+
+        assertThat(statistics.getQueryCacheHitCount() - queryHits).isGreaterThanOrEqualTo(3);
+        assertThat(teamRegion().getHitCount() - teamHits).isGreaterThanOrEqualTo(3);
+    }
+
+    //전체 SQL 수(getPrepareStatementCount)는 같은 컨텍스트를 쓰는 다른 SQL에도 올라가므로 region 통계를 본다.
+    private CacheRegionStatistics teamRegion() {
+        return statistics.getDomainDataRegionStatistics(Team.class.getName());
+    }
+}
@@ -0,0 +1,75 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.IndexAdviceDto;
+import sh.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class IndexAdvisorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    SqlWorkloadSampler sampler;
+
+    @Test
+    public void adviseTest() {
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("advisor" + i, i * 10));
+        }
+        em.flush();
+
+        //age만으로 찾는 인덱스는 없으므로 member full scan
+        em.createQuery("select m from Member m where m.age >= 50", Member.class).getResultList();
+        //username은 idx_member_username이 있으므로 제안하지 않는다.
+        em.createQuery("select m from Member m where m.username = 'advisor1'", Member.class).getResultList();
+
+        //계획만 보면 비용은 재지 않는다.
+        assertThat(indexAdvisor.advise(false))
+                .filteredOn(a -> a.getColumns().equals(List.of("age")))
+                .isNotEmpty()
+                .allMatch(a -> a.getCostBefore() == null);
+
+        List<IndexAdviceDto> advice = indexAdvisor.advise(true);
+
+        assertThat(advice)
+                .filteredOn(a -> a.getTable().equals("member"))
+                .extracting(IndexAdviceDto::getColumns)
+                .contains(List.of("age"))
+                .doesNotContain(List.of("username"));
+        assertThat(advice)
+                .filteredOn(a -> a.getColumns().equals(List.of("age")))
+                .allMatch(a -> a.getCostBefore() >= 10);
+    }
+
+    //바인딩 값은 SQL에 채우지 않고, 모양마다 최근 values-per-shape(3)개만 남긴다.
+    @Test
+    public void samplerTest() {
+        for (int i = 0; i < 5; i++) {
+            em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", "sampled" + i)
+                    .getResultList();
+        }
+
+        SqlWorkloadSampler.Sample sample = sampler.samples().stream()
+                .filter(s -> s.getParameters().contains(List.of("sampled4")))
+                .findFirst()
+                .orElseThrow();
+        assertThat(sample.getSql()).contains("username=?").doesNotContain("sampled");
+        assertThat(sample.getParameters()).containsExactly(
+                List.of("sampled2"), List.of("sampled3"), List.of("sampled4"));
+    }
+}
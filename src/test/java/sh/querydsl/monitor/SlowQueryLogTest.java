@@ -0,0 +1,78 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.SlowQueryDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+import sh.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//threshold 0: 모든 SQL을 느린 SQL로 남긴다.
+@SpringBootTest(properties = {"sql.slow-query.threshold-millis=0", "sql.slow-query.capacity=64"})
+@Transactional
+public class SlowQueryLogTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    SlowQueryLog slowQueryLog;
+
+    @Test
+    public void captureTest() throws Exception {
+        Team teamA = new Team("slowTeam");
+        em.persist(teamA);
+        em.persist(new Member("slow1", 10, teamA));
+        em.flush();
+        slowQueryLog.reset();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("slow1");
+        condition.setAgeGoe(5);
+        memberRepository.search(condition);
+        //남긴 뒤에 조건을 바꿔도 기록은 그대로
+        condition.setUsername("changed");
+
+        SlowQueryDto captured = slowQueryLog.recent(10).stream()
+                .filter(q -> q.getMethod() != null && q.getMethod().endsWith(".search"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(captured.getCondition().getUsername()).isEqualTo("slow1");
+        assertThat(captured.getCondition().getAgeGoe()).isEqualTo(5);
+        assertThat(captured.getSql()).contains("'slow1'");
+
+        //EXPLAIN은 별도 스레드에서 채운다.
+        SlowQueryDto explained = null;
+        for (int i = 0; i < 50 && explained == null; i++) {
+            explained = slowQueryLog.recent(10).stream()
+                    .filter(q -> q.getSequence() == captured.getSequence() && q.getPlan() != null)
+                    .findFirst()
+                    .orElse(null);
+            Thread.sleep(100);
+        }
+        assertThat(explained).isNotNull();
+        assertThat(explained.getPlan()).containsIgnoringCase("member");
+    }
+
+    @Test
+    public void ringOverwriteTest() {
+        slowQueryLog.reset();
+        for (int i = 0; i < 100; i++) {
+            em.createQuery("select m from Member m where m.age = " + i, Member.class).getResultList();
+        }
+
+        //capacity를 넘으면 오래된 것부터 덮어쓰고, 최근 것부터 돌려준다.
+        assertThat(slowQueryLog.recent(1000)).hasSize(64);
+        assertThat(slowQueryLog.recent(1).get(0).getSql()).contains("=99");
+    }
+}
@@ -0,0 +1,22 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//테스트 메서드 본문(@BeforeEach 제외)이 실행한 SQL 수가 max를 넘거나, 같은 모양이 repeatThreshold번 이상 반복되면(N+1) 실패한다.
+//insert/update도 세므로 데이터는 @BeforeEach에서 만들고 flush/clear 해둔다.
+//다른 스레드(countExecutor)에서 실행된 SQL은 세지 않는다.
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlBudgetExtension.class)
+public @interface SqlBudget {
+
+    int max();
+
+    //0이면 반복은 보지 않는다.
+    int repeatThreshold() default 3;
+}
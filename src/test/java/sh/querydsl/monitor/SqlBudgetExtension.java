@@ -0,0 +1,86 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
+
+//@SqlBudget, @SqlPlan을 처리한다. 테스트 메서드 본문 동안 SqlStatementContext 범위를 열어 SQL 수를 세고
+//(@Transactional 테스트 트랜잭션은 그 바깥에서 시작/롤백된다) 끝나면 예산과 계획을 검사한다.
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlCaptureListener.start();
+        context.getStore(NAMESPACE).put(SqlStatementContext.Scope.class, SqlStatementContext.open(
+                context.getRequiredTestClass().getSimpleName() + "." + context.getRequiredTestMethod().getName()));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementContext.Scope scope = context.getStore(NAMESPACE)
+                .remove(SqlStatementContext.Scope.class, SqlStatementContext.Scope.class);
+        List<String> statements = SqlCaptureListener.stop();
+        scope.close();
+        if (context.getExecutionException().isPresent()) {
+            return; //이미 실패한 테스트는 원래 실패를 그대로 보여준다.
+        }
+
+        annotation(context, SqlBudget.class).ifPresent(budget -> {
+            assertThat(scope.getStatements())
+                    .as("%s executed %s", scope.getName(), statements)
+                    .isLessThanOrEqualTo(budget.max());
+            if (budget.repeatThreshold() > 0) {
+                assertThat(scope.repeatedShapes(budget.repeatThreshold()))
+                        .as("%s repeated shapes (N+1)", scope.getName())
+                        .isEmpty();
+            }
+        });
+
+        annotation(context, SqlPlan.class).ifPresent(plan -> checkPlans(context, statements, plan));
+    }
+
+    //범위를 닫은 뒤에 EXPLAIN하므로 EXPLAIN 자신은 예산에 들어가지 않는다.
+    private static void checkPlans(ExtensionContext context, List<String> statements, SqlPlan expected) {
+        IndexAdvisor indexAdvisor = SpringExtension.getApplicationContext(context).getBean(IndexAdvisor.class);
+        List<String> plans = new ArrayList<>();
+        for (String sql : statements) {
+            if (SqlShape.isSelect(sql)) {
+                String plan = indexAdvisor.plan(sql);
+                assertThat(plan).as("explain failed: %s", sql).isNotNull();
+                plans.add(plan.toUpperCase(Locale.ROOT));
+            }
+        }
+        assertThat(plans).as("no select executed").isNotEmpty();
+
+        for (String index : expected.uses()) {
+            String name = "." + index.toUpperCase(Locale.ROOT);
+            assertThat(plans)
+                    .as("index %s not used%n%s", index, String.join("\n\n", plans))
+                    .anyMatch(plan -> plan.contains(name));
+        }
+        for (String table : expected.noTableScan()) {
+            String scan = "." + table.toUpperCase(Locale.ROOT) + ".TABLESCAN";
+            List<String> scans = plans.stream().filter(plan -> plan.contains(scan)).collect(Collectors.toList());
+            assertThat(scans).as("full scan on %s", table).isEmpty();
+        }
+    }
+
+    //메서드에 없으면 클래스에 붙은 것
+    private static <A extends Annotation> Optional<A> annotation(ExtensionContext context, Class<A> type) {
+        Optional<A> method = findAnnotation(context.getRequiredTestMethod(), type);
+        return method.isPresent() ? method : findAnnotation(context.getRequiredTestClass(), type);
+    }
+}
@@ -0,0 +1,87 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//테스트 설정은 fail-on-exceed: true. 예산을 넘으면 본문을 쓰기 전에 막혀서 500이 내려가야 한다.
+@SpringBootTest(properties = "sql.budget.endpoints.[/v2/members]=1")
+@AutoConfigureMockMvc
+@Transactional
+@Import(SqlBudgetInterceptorTest.NPlusOneController.class)
+class SqlBudgetInterceptorTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("budgetTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("budget" + i, 10 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //content + count = 2 > 1
+    @Test
+    public void overBudgetTest() throws Exception {
+        String body = mockMvc.perform(get("/v2/members").param("teamName", "budgetTeam").param("size", "2"))
+                .andExpect(status().isInternalServerError())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).doesNotContain("budget0");
+    }
+
+    @Test
+    public void withinBudgetTest() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "budgetTeam"))
+                .andExpect(status().isOk());
+    }
+
+    //회원마다 em.find -> 같은 모양의 select가 repeat-threshold(3)번 이상
+    @Test
+    public void nPlusOneTest() throws Exception {
+        mockMvc.perform(get("/test/sql-budget/n-plus-one"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @RestController
+    static class NPlusOneController {
+
+        @Autowired
+        EntityManager em;
+
+        @GetMapping("/test/sql-budget/n-plus-one")
+        public List<String> usernames() {
+            List<Long> ids = em.createQuery("select m.id from Member m where m.team.name = 'budgetTeam'", Long.class)
+                    .getResultList();
+            em.clear();
+            return ids.stream()
+                    .map(id -> em.find(Member.class, id).getUsername())
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package sh.querydsl.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+//SqlBudgetExtension이 켜둔 동안 현재 스레드에서 실행된 SQL을 값이 채워진 채로 모은다. (EXPLAIN에 쓴다)
+//테스트 클래스 경로에 있는 @Component라 모든 테스트 컨텍스트에 p6spy 리스너로 등록되고, 켜지 않으면 아무것도 하지 않는다.
+@Component
+public class SqlCaptureListener extends JdbcEventListener {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    static void start() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured != null ? captured : List.of();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(statementInformation.getSqlWithValues());
+        }
+    }
+}
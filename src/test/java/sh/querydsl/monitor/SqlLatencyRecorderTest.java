@@ -0,0 +1,42 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.SqlShapeStatsDto;
+import sh.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class SqlLatencyRecorderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SqlLatencyRecorder recorder;
+
+    @Test
+    public void recordByShapeTest() {
+        em.persist(new Member("latency1", 10));
+        em.flush();
+        recorder.reset();
+
+        for (int i = 0; i < 3; i++) {
+            em.createQuery("select m from Member m where m.age = " + (10 + i), Member.class).getResultList();
+        }
+
+        //리터럴만 다른 쿼리는 하나의 모양으로 모인다.
+        SqlShapeStatsDto stats = recorder.snapshot().stream()
+                .filter(s -> s.getShape().contains("where member0_.age=?"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(stats.getCalls()).isEqualTo(3);
+        assertThat(stats.getFetch().getCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,21 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//테스트 메서드 본문에서 실행된 select를 H2 EXPLAIN해서 계획을 검사한다. (IndexAdvisor.plan)
+//uses: 하나 이상의 select가 이 인덱스를 써야 한다. noTableScan: 어떤 select도 이 테이블을 full scan하면 안 된다.
+//이름은 대소문자를 가리지 않는다. 예) @SqlPlan(uses = "idx_member_username", noTableScan = "member")
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlBudgetExtension.class)
+public @interface SqlPlan {
+
+    String[] uses() default {};
+
+    String[] noTableScan() default {};
+}
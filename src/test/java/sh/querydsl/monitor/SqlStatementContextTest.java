@@ -0,0 +1,51 @@
+package sh.querydsl.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class SqlStatementContextTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void normalizeTest() {
+        assertThat(SqlShape.normalize("select * from member where username='member1' and age in (10, 20,30)"))
+                .isEqualTo("select * from member where username=? and age in (?)");
+        assertThat(SqlShape.normalize("select member0_.team_id from member member0_\n where member0_.age>=?"))
+                .isEqualTo("select member0_.team_id from member member0_ where member0_.age>=?");
+    }
+
+    @Test
+    public void batchFetchTest() {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            em.persist(new Member("batchMember" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        try (SqlStatementContext.Scope scope = SqlStatementContext.open("batchFetchTest")) {
+            List<Member> members = em.createQuery(
+                    "select m from Member m where m.username like 'batchMember%'", Member.class)
+                    .getResultList();
+            members.forEach(m -> m.getTeam().getName());
+
+            //member 1번 + team in (...) 1번. @BatchSize가 없으면 팀마다 한 번씩 6번
+            assertThat(scope.getStatements()).isEqualTo(2);
+            assertThat(scope.repeatedShapes(3)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.BulkOperation;
+import sh.querydsl.dto.MemberBulkJobDto;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkOperationsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    @Test
+    public void chunkedUpdateTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member first = new Member("member0", 0, teamA);
+        em.persist(first);
+        for (int i = 1; i < 10; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        MemberBulkJobRequest request = new MemberBulkJobRequest(BulkOperation.ADD_AGE, condition);
+        request.setAgeDelta(10);
+        request.setChunkSize(3);
+
+        MemberBulkJobDto job = memberBulkOperations.execute(request);
+
+        assertThat(job.getStatus()).isEqualTo(MemberBulkJobDto.Status.COMPLETED);
+        assertThat(job.getAffectedRows()).isEqualTo(5);
+        assertThat(job.getCompletedChunks()).isEqualTo(job.getTotalChunks()).isGreaterThan(1);
+
+        //영속성 컨텍스트에 있던 first는 떼어졌으므로 다시 조회하면 DB에 반영된 값을 읽는다.
+        assertThat(em.contains(first)).isFalse();
+        assertThat(em.find(Member.class, first.getId()).getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void chunkedDeleteTest() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+        MemberBulkJobRequest request = new MemberBulkJobRequest(BulkOperation.DELETE, condition);
+        request.setChunkSize(4);
+
+        assertThat(memberBulkOperations.execute(request).getAffectedRows()).isEqualTo(5);
+        assertThat(em.createQuery("select count(m) from Member m", Long.class).getSingleResult()).isEqualTo(5);
+    }
+}
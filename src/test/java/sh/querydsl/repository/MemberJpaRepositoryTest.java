@@ -1,9 +1,11 @@
 package sh.querydsl.repository;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.MemberCreateDto;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
 import sh.querydsl.entity.Member;
@@ -11,9 +13,11 @@ import sh.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -87,4 +91,97 @@ class MemberJpaRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchShapeCacheTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("teamB");
+        teamAndAge.setAgeGoe(35);
+
+        //같은 모양(teamName + ageGoe)이 두 번째부터는 캐시된 JPQL에 파라미터만 다르게 바인딩된다.
+        assertThat(memberJpaRepository.search(teamAndAge)).extracting("username").containsExactly("member4");
+        teamAndAge.setTeamName("teamA");
+        teamAndAge.setAgeGoe(15);
+        assertThat(memberJpaRepository.search(teamAndAge)).extracting("username").containsExactly("member2");
+
+        //ageGoe와 ageLoe가 같은 값이어도 각각의 파라미터로 바인딩된다.
+        MemberSearchCondition sameAge = new MemberSearchCondition();
+        sameAge.setAgeGoe(30);
+        sameAge.setAgeLoe(30);
+        assertThat(memberJpaRepository.search(sameAge)).extracting("username").containsExactly("member3");
+
+        assertThat(memberJpaRepository.search(new MemberSearchCondition())).hasSize(4);
+    }
+
+    @Test
+    public void saveAllTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        List<MemberCreateDto> requests = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            requests.add(new MemberCreateDto("bulk" + i, i % 50, teamA.getId()));
+        }
+
+        int count = memberJpaRepository.saveAll(requests);
+
+        assertThat(count).isEqualTo(250);
+        //호출한 쪽이 들고 있던 엔티티는 detach되지 않는다.
+        assertThat(em.contains(teamA)).isTrue();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberJpaRepository.search(condition)).hasSize(250);
+    }
+
+    @Test
+    public void readInWriteTransactionTest() throws Exception {
+        memberJpaRepository.save(new Member("member1", 10));
+        em.flush();
+        em.clear();
+
+        //테스트의 쓰기 트랜잭션에 참여하므로 READ_ONLY 힌트를 걸지 않는다.
+        Member findMember = memberJpaRepository.findByUsername("member1").get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(findMember)).isFalse();
+
+        //조회한 엔티티를 바꾸면 flush때 update된다.
+        findMember.setAge(20);
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findByUsername_Querydsl("member1").get(0).getAge()).isEqualTo(20);
+        assertThat(memberJpaRepository.findAll()).extracting("age").containsExactly(20);
+    }
+
+    @Test
+    public void searchByTeamDictionaryTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //team을 조인하지 않아도 팀 이름은 사전에서 채워진다.
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+        assertThat(result).extracting("username", "teamName").containsExactly(tuple("member1", "teamA"));
+
+        //같은 트랜잭션에서 바꾼 팀 이름도 바로 보인다.
+        teamA.setName("teamC");
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+        condition.setTeamName("teamC");
+        assertThat(memberJpaRepository.search(condition)).extracting("teamName").containsExactly("teamC");
+
+        condition.setTeamName("noSuchTeam");
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+    }
+}
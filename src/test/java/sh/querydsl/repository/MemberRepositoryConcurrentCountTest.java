@@ -0,0 +1,107 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//트랜잭션 밖(또는 읽기 전용)에서만 count를 countExecutor 스레드의 별도 EntityManager로 센다.
+//@Transactional 테스트에서는 같은 스레드 경로만 타므로 데이터를 커밋하고 확인한다.
+@SpringBootTest
+class MemberRepositoryConcurrentCountTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    @Qualifier("memberCountExecutor")
+    ThreadPoolTaskExecutor countExecutor;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("concurrentTeamA");
+            Team teamB = new Team("concurrentTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("member" + i, i * 10, teamA));
+            }
+            em.persist(new Member("member6", 60, teamB));
+        });
+    }
+
+    //커밋한 데이터는 다른 테스트에 남지 않도록 지운다.
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void concurrentCountTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("concurrentTeamA");
+        long completed = countExecutor.getThreadPoolExecutor().getCompletedTaskCount();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageConcurrent(condition, PageRequest.of(1, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("username").containsExactly("member3", "member4");
+        //count는 countExecutor 스레드에서 실행되고 join으로 기다린 뒤 끝나 있다.
+        assertThat(countExecutor.getThreadPoolExecutor().getCompletedTaskCount()).isGreaterThan(completed);
+
+        //searchPageUpgrade와 같은 total
+        assertThat(memberRepository.searchPageUpgrade(condition, PageRequest.of(1, 2)).getTotalElements())
+                .isEqualTo(result.getTotalElements());
+    }
+
+    //첫 페이지가 덜 차면 count를 기다리지 않고 content 크기로 total을 정한다.
+    @Test
+    public void countNotNeededTest() throws Exception {
+        Page<MemberTeamDto> result = memberRepository.searchPageConcurrent(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        assertThat(result.getContent()).hasSize(6);
+    }
+
+    @Test
+    public void readOnlyTransactionTest() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Page<MemberTeamDto> result = readOnly.execute(status ->
+                memberRepository.searchPageConcurrent(new MemberSearchCondition(), PageRequest.of(0, 4)));
+
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4");
+    }
+}
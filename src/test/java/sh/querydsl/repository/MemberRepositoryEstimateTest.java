@@ -0,0 +1,86 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//mode=ESTIMATE: 조건이 없으면 H2 통계의 추정 row 수, 조건이 있으면 count-cap(3)개까지만 센 total
+@SpringBootTest(properties = "member.estimate.count-cap=3")
+@Transactional
+class MemberRepositoryEstimateTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.persist(new Member("member6", 60, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void unfilteredEstimateTest() throws Exception {
+        Page<MemberTeamDto> result = memberRepository.searchPageEstimated(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+        Number estimate = (Number) em.createNativeQuery("select row_count_estimate from information_schema.tables" +
+                " where table_schema = schema() and table_name = 'MEMBER'").getSingleResult();
+        //추정치가 이미 읽은 row보다 작으면 PageImpl이 offset + content 수로 올린다.
+        assertThat(result.getTotalElements()).isEqualTo(Math.max(estimate.longValue(), 2));
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+    }
+
+    //teamA는 5명이지만 offset부터 3명까지만 센다.
+    @Test
+    public void cappedCountTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<MemberTeamDto> first = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 2));
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+
+        //offset 2 + 남은 3명
+        Page<MemberTeamDto> second = memberRepository.searchPageEstimated(condition, PageRequest.of(1, 2));
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void cappedCountConditionTest() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        //member2, member3, member4 -> 첫 페이지가 꽉 차므로 native count를 실행한다.
+        Page<MemberTeamDto> result = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 1));
+        assertThat(result.getTotalElements()).isEqualTo(3);
+
+        condition.setTeamName("noSuchTeam");
+        assertThat(memberRepository.searchPageEstimated(condition, PageRequest.of(0, 1)).getTotalElements()).isZero();
+    }
+}
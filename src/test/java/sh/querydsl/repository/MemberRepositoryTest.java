@@ -6,7 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.CursorPage;
 import sh.querydsl.dto.MemberSearchCondition;
 import sh.querydsl.dto.MemberTeamDto;
 import sh.querydsl.entity.Member;
@@ -101,6 +103,157 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void searchPageUpgradeCountCache() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        assertThat(memberRepository.searchPageUpgrade(condition, pageRequest).getTotalElements()).isEqualTo(4);
+        //두 번째 조회는 캐시된 count를 쓴다.
+        assertThat(memberRepository.searchPageUpgrade(condition, pageRequest).getTotalElements()).isEqualTo(4);
+
+        //저장하면 DataVersion이 올라가서 캐시된 count는 버려진다.
+        memberRepository.save(new Member("member5", 50, teamA));
+
+        assertThat(memberRepository.searchPageUpgrade(condition, pageRequest).getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void searchPageConcurrent() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2);
+
+        //테스트 트랜잭션 안이라 커밋 전 데이터가 보이도록 같은 커넥션에서 센다. 결과는 searchPageUpgrade와 같아야 한다.
+        Page<MemberTeamDto> result = memberRepository.searchPageConcurrent(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void searchSlice() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchAfter() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        CursorPage<MemberTeamDto> first = memberRepository.searchAfter(condition, null, 3);
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2","member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        //이전 응답의 nextCursor로 이어서 조회
+        CursorPage<MemberTeamDto> second = memberRepository.searchAfter(condition, first.getNextCursor(), 3);
+
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    //없는 팀 이름이면 content, count, cursor 모두 비어 있다.
+    @Test
+    public void unknownTeamTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("noSuchTeam");
+        PageRequest pageable = PageRequest.of(0, 1);
+
+        Page<MemberTeamDto> page = memberRepository.searchPageUpgrade(condition, pageable);
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+        assertThat(memberRepository.searchPageConcurrent(condition, pageable).getTotalElements()).isZero();
+        assertThat(memberRepository.searchPageEstimated(condition, pageable).getTotalElements()).isZero();
+        assertThat(memberRepository.searchSlice(condition, pageable).hasNext()).isFalse();
+
+        CursorPage<MemberTeamDto> after = memberRepository.searchAfter(condition, null, 1);
+        assertThat(after.getContent()).isEmpty();
+        assertThat(after.isHasNext()).isFalse();
+    }
+
+    //offset 1000 전후의 페이지가 단순 offset 조회와 같고, /v4 cursor로 이어서 읽은 순서와도 같다.
+    @Test
+    public void deepPageTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 1050; i++) {
+            em.persist(new Member("member" + i, i % 100, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        String cursor = null;
+        for (int page = 0; page < 52; page++) {
+            PageRequest pageable = PageRequest.of(page, 20);
+            List<Long> expected = em.createQuery("select m.id from Member m order by m.id", Long.class)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+            CursorPage<MemberTeamDto> after = memberRepository.searchAfter(condition, cursor, 20);
+            cursor = after.getNextCursor();
+
+            //offset 960 ~ 1040을 지나는 페이지만 비교한다.
+            if (page < 48) {
+                continue;
+            }
+            assertThat(memberRepository.searchPageUpgrade(condition, pageable).getContent())
+                    .extracting("memberId").containsExactlyElementsOf(expected);
+            assertThat(memberRepository.searchSlice(condition, pageable).getContent())
+                    .extracting("memberId").containsExactlyElementsOf(expected);
+            assertThat(after.getContent()).extracting("memberId").containsExactlyElementsOf(expected);
+        }
+    }
+
     //QuerydslPredicateExecutor는 Pageable,Sort를 모두 지원하지만, 한계점이 명확하다.
     //조인을 할 수 없다.(묵시적 조인은 가능하지만, left join이 불가능하다.)
     //클라이언트가 Querydsl에 의존해야 한다. 서비스 클래스가 Querydsl이라는 구현 기술에 의존해야한다.
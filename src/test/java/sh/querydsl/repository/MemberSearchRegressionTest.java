@@ -0,0 +1,118 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.MemberTeamDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+import sh.querydsl.monitor.SqlBudget;
+import sh.querydsl.monitor.SqlPlan;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//회원 검색이 실행하는 SQL 수와 EXPLAIN 계획이 나빠지면 실패한다. (@SqlBudget, @SqlPlan)
+//쿼리가 하나 늘거나 인덱스를 못 타게 바뀌면 결과가 같아도 여기서 잡힌다.
+@SpringBootTest
+@Transactional
+class MemberSearchRegressionTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        //insert는 예산에 넣지 않는다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @SqlBudget(max = 1)
+    @SqlPlan(uses = "idx_member_username", noTableScan = "member")
+    public void searchByUsername() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+    }
+
+    //content + count
+    @Test
+    @SqlBudget(max = 2)
+    @SqlPlan(uses = "idx_member_username", noTableScan = "member")
+    public void searchPageComplexByUsername() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member2");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    //첫 페이지가 다 차지 않으면 count 쿼리를 생략한다.
+    @Test
+    @SqlBudget(max = 1)
+    public void searchPageUpgradeSkipsCount() throws Exception {
+        Page<MemberTeamDto> result = memberRepository.searchPageUpgrade(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    @SqlBudget(max = 1)
+    public void searchSliceWithoutCount() throws Exception {
+        assertThat(memberRepository.searchSlice(new MemberSearchCondition(), PageRequest.of(0, 3)).hasNext()).isTrue();
+    }
+
+    //같은 트랜잭션에서 만든 팀이라 팀 사전을 한 번 읽고(team), 회원은 team을 조인하지 않고 team_id + age 인덱스로 찾는다.
+    @Test
+    @SqlBudget(max = 2)
+    @SqlPlan(noTableScan = "member")
+    public void jpaSearchByTeamAndAge() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        assertThat(memberJpaRepository.search(condition)).extracting("username", "teamName")
+                .containsExactly(tuple("member4", "teamB"));
+    }
+
+    @Test
+    @SqlBudget(max = 1)
+    @SqlPlan(uses = "idx_member_username", noTableScan = "member")
+    public void jpaFindByUsername() throws Exception {
+        assertThat(memberJpaRepository.findByUsername_Querydsl("member3")).extracting("age").containsExactly(30);
+    }
+
+    //회원 1번 + 팀은 @BatchSize로 in (...) 한 번. 회원마다 팀을 읽으면(N+1) 실패한다.
+    @Test
+    @SqlBudget(max = 2)
+    public void teamsOfAllMembers() throws Exception {
+        memberJpaRepository.findAll().forEach(m -> m.getTeam().getName());
+    }
+}
@@ -0,0 +1,240 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.BulkOperation;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.dto.TeamStatsDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//TeamStatsEventListener는 커밋 직전에 반영하므로 @Transactional(롤백) 대신 트랜잭션을 실제로 커밋하고 확인한다.
+@SpringBootTest
+class TeamStatsEventListenerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    //커밋한 데이터는 다른 테스트에 남지 않도록 지운다.
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void insertTest() throws Exception {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            return teamA.getId();
+        });
+
+        //같은 트랜잭션에서 만든 팀은 들어온 회원까지 세어서 row를 만든다.
+        TeamStatsDto created = stats(teamId).orElseThrow();
+        assertThat(created.getMemberCount()).isEqualTo(2);
+        assertThat(created.getAgeMin()).isEqualTo(10);
+        assertThat(created.getAgeMax()).isEqualTo(20);
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member3", 5, em.find(Team.class, teamId))));
+
+        TeamStatsDto added = stats(teamId).orElseThrow();
+        assertThat(added.getMemberCount()).isEqualTo(3);
+        assertThat(added.getAgeAvg()).isEqualTo(35 / 3.0);
+        assertThat(added.getAgeMin()).isEqualTo(5);
+    }
+
+    @Test
+    public void changeTeamTest() throws Exception {
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member moving = new Member("member1", 30, teamA);
+            em.persist(moving);
+            em.persist(new Member("member2", 10, teamA));
+            return new Long[]{teamA.getId(), teamB.getId(), moving.getId()};
+        });
+
+        tx.executeWithoutResult(status ->
+                em.find(Member.class, ids[2]).changeTeam(em.find(Team.class, ids[1])));
+
+        //나간 팀은 다시 세므로 max가 줄어든다.
+        TeamStatsDto teamA = stats(ids[0]).orElseThrow();
+        assertThat(teamA.getMemberCount()).isEqualTo(1);
+        assertThat(teamA.getAgeMax()).isEqualTo(10);
+        TeamStatsDto teamB = stats(ids[1]).orElseThrow();
+        assertThat(teamB.getMemberCount()).isEqualTo(1);
+        assertThat(teamB.getAgeMin()).isEqualTo(30);
+    }
+
+    @Test
+    public void deleteTest() throws Exception {
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            em.persist(teamA);
+            Member oldest = new Member("member1", 40, teamA);
+            em.persist(oldest);
+            em.persist(new Member("member2", 20, teamA));
+            return new Long[]{teamA.getId(), oldest.getId()};
+        });
+
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[1])));
+
+        TeamStatsDto stats = stats(ids[0]).orElseThrow();
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getAgeMax()).isEqualTo(20);
+    }
+
+    @Test
+    public void rollbackTest() throws Exception {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            return teamA.getId();
+        });
+
+        //flush까지 해서 이벤트는 받았지만 커밋되지 않았으므로 반영하지 않는다.
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member2", 90, em.find(Team.class, teamId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        TeamStatsDto stats = stats(teamId).orElseThrow();
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getAgeMax()).isEqualTo(10);
+    }
+
+    //통계 row가 없는 팀은 회원 저장을 막지 않고 reconcile이 만든다.
+    @Test
+    public void missingRowTest() throws Exception {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            em.persist(teamA);
+            return teamA.getId();
+        });
+        tx.executeWithoutResult(status -> em.createQuery("delete from TeamStats").executeUpdate());
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member1", 10, em.find(Team.class, teamId))));
+        assertThat(stats(teamId)).isEmpty();
+
+        teamStatsRepository.reconcile();
+        assertThat(stats(teamId).orElseThrow().getMemberCount()).isEqualTo(1);
+    }
+
+    //bulk update/delete는 이벤트가 없으므로 chunk 트랜잭션 안에서 대상 팀을 다시 센다.
+    @Test
+    public void bulkTest() throws Exception {
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 6; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+            return new Long[]{teamA.getId(), teamB.getId()};
+        });
+
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("statsTeamA");
+        MemberBulkJobRequest addAge = new MemberBulkJobRequest(BulkOperation.ADD_AGE, teamA);
+        addAge.setAgeDelta(1);
+        addAge.setChunkSize(2);
+        memberBulkOperations.execute(addAge);
+
+        //0, 20, 40 -> 1, 21, 41
+        TeamStatsDto afterUpdate = stats(ids[0]).orElseThrow();
+        assertThat(afterUpdate.getAgeMin()).isEqualTo(1);
+        assertThat(afterUpdate.getAgeMax()).isEqualTo(41);
+
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(30);
+        memberBulkOperations.execute(new MemberBulkJobRequest(BulkOperation.DELETE, old));
+
+        //teamA: 1, 21 / teamB: 10
+        assertThat(stats(ids[0]).orElseThrow().getMemberCount()).isEqualTo(2);
+        assertThat(stats(ids[1]).orElseThrow().getMemberCount()).isEqualTo(1);
+        assertThat(stats(ids[1]).orElseThrow().getAgeMax()).isEqualTo(10);
+    }
+
+    //reconcile이 고치는 동안 다른 스레드가 회원을 저장해도 그 INCREMENT가 덮어써지지 않는다.
+    @Test
+    public void reconcileConcurrentTest() throws Exception {
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            em.persist(teamA);
+            return teamA.getId();
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> saving = executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    int age = i;
+                    tx.executeWithoutResult(status -> em.persist(new Member("member" + age, age, em.find(Team.class, teamId))));
+                }
+            });
+            //매번 어긋나게 만들어서 reconcile이 실제로 row를 고치게 한다.
+            while (!saving.isDone()) {
+                tx.executeWithoutResult(status -> em.createNativeQuery(
+                        "update team_stats set member_count = member_count + 1000 where team_id = " + teamId)
+                        .executeUpdate());
+                teamStatsRepository.reconcile();
+            }
+            saving.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        TeamStatsDto stats = stats(teamId).orElseThrow();
+        assertThat(stats.getMemberCount()).isEqualTo(50);
+        assertThat(stats.getAgeMin()).isEqualTo(0);
+        assertThat(stats.getAgeMax()).isEqualTo(49);
+        assertThat(stats.getAgeAvg()).isEqualTo(49 / 2.0);
+    }
+
+    private Optional<TeamStatsDto> stats(Long teamId) {
+        return teamStatsRepository.findAll().stream()
+                .filter(s -> s.getTeamId().equals(teamId))
+                .findFirst();
+    }
+}
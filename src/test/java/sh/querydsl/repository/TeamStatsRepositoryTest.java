@@ -0,0 +1,53 @@
+package sh.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import sh.querydsl.dto.ReconcileResultDto;
+import sh.querydsl.dto.TeamStatsDto;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    //테스트 트랜잭션은 롤백되므로 커밋 직전에 반영되는 이벤트 집계 대신 reconcile로 만든 값을 확인한다.
+    @Test
+    public void reconcileTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        ReconcileResultDto result = teamStatsRepository.reconcile();
+        assertThat(result.getChecked()).isEqualTo(2);
+        assertThat(result.getRepaired()).isEqualTo(2);
+
+        List<TeamStatsDto> stats = teamStatsRepository.findAll();
+        assertThat(stats).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(stats).extracting("memberCount").containsExactly(2L, 2L);
+        assertThat(stats).extracting("ageAvg").containsExactly(15.0, 35.0);
+        assertThat(stats).extracting("ageMax").containsExactly(20, 40);
+
+        //이미 맞는 값이면 고치지 않는다.
+        assertThat(teamStatsRepository.reconcile().getRepaired()).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package sh.querydsl.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemberColumnsTest {
+
+    //id 1~10, 홀수는 팀 1, 짝수는 팀 2, 10번은 팀 없음. username은 member1, member2 두 가지
+    private MemberColumns columns() {
+        MemberColumns.Builder builder = MemberColumns.builder();
+        for (long id = 1; id <= 10; id++) {
+            Long teamId = id == 10 ? null : (id % 2 == 1 ? 1L : 2L);
+            builder.add(id, "member" + (id % 2 + 1), (int) id * 10, teamId);
+        }
+        return builder.build();
+    }
+
+    private long[] ids(MemberColumns columns, MemberColumns.Result result) {
+        return Arrays.stream(result.getRows()).mapToLong(columns::id).toArray();
+    }
+
+    @Test
+    public void searchTest() {
+        MemberColumns columns = columns();
+
+        MemberColumns.Result result = columns.search(null, new long[]{2L}, 35, null, 0, 2,
+                MemberColumns.SortKey.ID, false);
+        assertThat(result.getTotal()).isEqualTo(3); //4, 6, 8
+        assertThat(ids(columns, result)).containsExactly(4L, 6L);
+
+        result = columns.search("member2", null, null, null, 0, 10, MemberColumns.SortKey.AGE, true);
+        assertThat(ids(columns, result)).containsExactly(9L, 7L, 5L, 3L, 1L);
+
+        assertThat(columns.search("nobody", null, null, null, 0, 10, MemberColumns.SortKey.ID, false).getTotal())
+                .isZero();
+        assertThat(columns.search(null, new long[0], null, null, 0, 10, MemberColumns.SortKey.ID, false).getTotal())
+                .isZero();
+        assertThat(columns.teamId(9)).isNull();
+    }
+
+    @Test
+    public void sortByUsernameTest() {
+        MemberColumns columns = columns();
+
+        MemberColumns.Result result = columns.search(null, null, null, 40, 1, 3, MemberColumns.SortKey.USERNAME, false);
+        assertThat(result.getTotal()).isEqualTo(4);
+        //member1(2, 4) -> member2(1, 3), 같은 이름은 id 순
+        assertThat(ids(columns, result)).containsExactly(4L, 1L, 3L);
+    }
+
+    @Test
+    public void applyTest() {
+        MemberColumns columns = columns();
+
+        MemberColumns changed = columns.apply(Arrays.asList(
+                MemberChange.update(3, "member3", 33, 2L, "member2"),
+                MemberChange.delete(4, "member1"),
+                MemberChange.insert(11, "member11", 110, 1L),
+                MemberChange.update(11, "member11", 111, 1L, "member11")));
+
+        assertThat(changed.size()).isEqualTo(10);
+        MemberColumns.Result result = changed.search(null, new long[]{2L}, null, null, 0, 10,
+                MemberColumns.SortKey.ID, false);
+        assertThat(ids(changed, result)).containsExactly(2L, 3L, 6L, 8L);
+
+        result = changed.search("member11", null, null, null, 0, 10, MemberColumns.SortKey.ID, false);
+        assertThat(ids(changed, result)).containsExactly(11L);
+        assertThat(changed.age(result.getRows()[0])).isEqualTo(111);
+
+        //이전 스냅샷은 그대로다.
+        assertThat(columns.size()).isEqualTo(10);
+        assertThat(columns.search("member3", null, null, null, 0, 10, MemberColumns.SortKey.ID, false).getTotal())
+                .isZero();
+        assertThat(changed.footprintBytes()).isGreaterThan(columns.footprintBytes());
+    }
+}
@@ -0,0 +1,156 @@
+package sh.querydsl.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sh.querydsl.dto.BulkOperation;
+import sh.querydsl.dto.MemberBulkJobRequest;
+import sh.querydsl.dto.MemberSearchCondition;
+import sh.querydsl.entity.Member;
+import sh.querydsl.entity.Team;
+import sh.querydsl.repository.MemberBulkOperations;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//스냅샷은 커밋된 변경만 받으므로 데이터를 커밋하고 지운다.
+//스케줄러가 끼어들지 않도록 initial-delay를 길게 두고 refresh/rebuild는 직접 부른다.
+@SpringBootTest(properties = {"member.snapshot.enabled=true", "member.snapshot.initial-delay=3600000"})
+@AutoConfigureMockMvc
+class MemberSnapshotTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSnapshot memberSnapshot;
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    TransactionTemplate tx;
+
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team teamA = new Team("snapshotTeamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            return teamA.getId();
+        });
+        memberSnapshot.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        memberSnapshot.rebuild();
+    }
+
+    //MemberChangeFeedListener는 커밋된 변경만 내보낸다.
+    @Test
+    public void commitOnlyTest() throws Exception {
+        long pending = memberSnapshot.stats().getPendingChanges();
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("rolledBack", 30, em.find(Team.class, teamId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(memberSnapshot.stats().getPendingChanges()).isEqualTo(pending);
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member3", 30, em.find(Team.class, teamId))));
+        assertThat(memberSnapshot.stats().getPendingChanges()).isEqualTo(pending + 1);
+    }
+
+    //refresh 전에는 이전 값, refresh 뒤에는 모아둔 변경(insert, 이름 변경, delete)이 반영된다.
+    @Test
+    public void refreshTest() throws Exception {
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.find(Team.class, teamId);
+            em.persist(new Member("member3", 30, teamA));
+            Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult();
+            member1.setUsername("renamed1");
+            em.remove(em.createQuery("select m from Member m where m.username = 'member2'", Member.class)
+                    .getSingleResult());
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("snapshotTeamA");
+        assertThat(memberSnapshot.search(condition)).extracting("username").containsExactly("member1", "member2");
+
+        memberSnapshot.refresh();
+
+        assertThat(memberSnapshot.search(condition)).extracting("username", "teamName")
+                .containsExactly(tuple("renamed1", "snapshotTeamA"), tuple("member3", "snapshotTeamA"));
+        assertThat(memberSnapshot.stats().getPendingChanges()).isZero();
+    }
+
+    //bulk 연산은 어떤 회원이 바뀌었는지 모르므로 reset -> 다음 refresh에서 전체를 다시 읽는다.
+    @Test
+    public void resetRebuildTest() throws Exception {
+        long fullBuilds = memberSnapshot.stats().getFullBuilds();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("snapshotTeamA");
+        MemberBulkJobRequest request = new MemberBulkJobRequest(BulkOperation.ADD_AGE, condition);
+        request.setAgeDelta(5);
+        memberBulkOperations.execute(request);
+
+        memberSnapshot.refresh();
+
+        assertThat(memberSnapshot.stats().getFullBuilds()).isEqualTo(fullBuilds + 1);
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(15, 25);
+    }
+
+    //source=SNAPSHOT은 refresh 전의 스냅샷을, 기본(JPA)은 커밋된 값을 돌려준다.
+    //스냅샷이 지원하지 않는 정렬이면 JPA로 보낸다.
+    @Test
+    public void sourceRoutingTest() throws Exception {
+        tx.executeWithoutResult(status ->
+                em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                        .getSingleResult().setUsername("renamed1"));
+
+        mockMvc.perform(get("/v1/members").param("teamName", "snapshotTeamA").param("source", "SNAPSHOT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("member1"));
+        mockMvc.perform(get("/v1/members").param("teamName", "snapshotTeamA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.username == 'renamed1')]").exists());
+
+        mockMvc.perform(get("/v2/members").param("teamName", "snapshotTeamA").param("source", "SNAPSHOT")
+                        .param("sort", "age,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[1].username").value("member1"));
+        mockMvc.perform(get("/v2/members").param("teamName", "snapshotTeamA").param("source", "SNAPSHOT")
+                        .param("sort", "teamName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[?(@.username == 'renamed1')]").exists());
+    }
+}
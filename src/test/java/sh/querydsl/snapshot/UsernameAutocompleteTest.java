@@ -0,0 +1,78 @@
+package sh.querydsl.snapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sh.querydsl.dto.UsernameSuggestionDto;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+//DB 없이 loader로 트리를 넣고, MemberChangeFeed로 들어온 변경이 반영되는지 본다.
+public class UsernameAutocompleteTest {
+
+    private MemberChangeFeed changeFeed;
+    private UsernameAutocomplete autocomplete;
+
+    @BeforeEach
+    public void before() {
+        changeFeed = new MemberChangeFeed();
+        autocomplete = new UsernameAutocomplete(null, null, changeFeed, new SimpleMeterRegistry(),
+                true, 10, 1000, 3600000);
+    }
+
+    private UsernameTrie trie(Object... wordCounts) {
+        UsernameTrie trie = new UsernameTrie(10);
+        for (int i = 0; i < wordCounts.length; i += 2) {
+            trie.put((String) wordCounts[i], (Integer) wordCounts[i + 1]);
+        }
+        trie.rankAll();
+        return trie;
+    }
+
+    @Test
+    public void changeFeedTest() {
+        autocomplete.rebuild(() -> trie("apple", 2, "apricot", 1));
+
+        changeFeed.publish(List.of(
+                MemberChange.insert(10L, "apricot", 10, null),
+                MemberChange.insert(11L, "apricot", 10, null),
+                MemberChange.update(1L, "banana", 10, null, "apple"),
+                MemberChange.delete(2L, "apple"),
+                //이름이 그대로인 update는 수를 바꾸지 않는다.
+                MemberChange.update(3L, "apricot", 20, null, "apricot")));
+
+        assertThat(autocomplete.suggest("ap", 10)).extracting("username", "memberCount")
+                .containsExactly(tuple("apricot", 3L));
+        assertThat(autocomplete.suggest("b", 10)).extracting("username", "memberCount")
+                .containsExactly(tuple("banana", 1L));
+    }
+
+    //전체 빌드가 읽는 동안 커밋된 변경은 새 트리에 다시 적용된 뒤 교체된다.
+    @Test
+    public void rebuildMergeTest() {
+        autocomplete.rebuild(() -> trie("apple", 1));
+
+        autocomplete.rebuild(() -> {
+            changeFeed.publish(List.of(MemberChange.insert(10L, "avocado", 10, null)));
+            //교체 전이므로 이전 트리에도 반영된다.
+            assertThat(autocomplete.suggest("av", 10)).extracting("username").containsExactly("avocado");
+            //avocado insert 전에 읽은 결과
+            return trie("apple", 1, "apricot", 4);
+        });
+
+        assertThat(autocomplete.suggest("a", 10)).extracting("username", "memberCount")
+                .containsExactly(tuple("apricot", 4L), tuple("apple", 1L), tuple("avocado", 1L));
+    }
+
+    @Test
+    public void sizeTest() {
+        autocomplete.rebuild(() -> trie("apple", 2, "apricot", 1));
+
+        assertThat(autocomplete.suggest("ap", 1)).extracting("username").containsExactly("apple");
+        assertThat(autocomplete.suggest("ap", 0)).isEmpty();
+        assertThat(autocomplete.suggest("ap", -1)).isEmpty();
+    }
+}
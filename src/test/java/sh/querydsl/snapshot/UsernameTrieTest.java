@@ -0,0 +1,49 @@
+package sh.querydsl.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UsernameTrieTest {
+
+    private String[] words(UsernameTrie.Node[] top) {
+        return Arrays.stream(top).map(UsernameTrie.Node::word).toArray(String[]::new);
+    }
+
+    @Test
+    public void topKTest() {
+        UsernameTrie trie = new UsernameTrie(2);
+        trie.put("member1", 3);
+        trie.put("member10", 5);
+        trie.put("member2", 3);
+        trie.put("mentor", 1);
+        trie.put("team", 9);
+        trie.rankAll();
+
+        assertThat(words(trie.top("me"))).containsExactly("member10", "member1");
+        assertThat(words(trie.top("member1"))).containsExactly("member10", "member1");
+        assertThat(words(trie.top("ment"))).containsExactly("mentor");
+        assertThat(words(trie.top(""))).containsExactly("team", "member10");
+        assertThat(trie.top("x")).isEmpty();
+        assertThat(trie.top("mentors")).isEmpty();
+        assertThat(trie.words()).isEqualTo(5);
+    }
+
+    @Test
+    public void renameTest() {
+        UsernameTrie trie = new UsernameTrie(2);
+        trie.add("member1", 2);
+        trie.add("member2", 1);
+        assertThat(words(trie.top("mem"))).containsExactly("member1", "member2");
+
+        //member1 두 명이 memo로 이름을 바꿨다.
+        trie.add("member1", -2);
+        trie.add("memo", 2);
+        assertThat(words(trie.top("mem"))).containsExactly("memo", "member2");
+        assertThat(trie.top("member1")).isEmpty();
+        assertThat(trie.top("memo")[0].count()).isEqualTo(2);
+        assertThat(trie.words()).isEqualTo(2);
+    }
+}